@@ -0,0 +1,34 @@
+package asmaa.client;
+
+import javafx.beans.NamedArg;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+
+/**
+ * ImageView dont l'image est chargée par ImageService à sa taille d'affichage
+ *
+ * En FXML : <CachedImageView source="football.jpg" fitWidth="300" fitHeight="250"/>
+ * (source : fichier de /images). Une image transparente occupe la place
+ * jusqu'à la fin du décodage, pour que la mise en page ne bouge pas.
+ */
+public class CachedImageView extends ImageView {
+
+    private static final Image PLACEHOLDER = new WritableImage(1, 1);
+
+    private final String source;
+
+    public CachedImageView(@NamedArg("source") String source,
+                           @NamedArg("fitWidth") double fitWidth,
+                           @NamedArg("fitHeight") double fitHeight) {
+        this.source = source;
+        setFitWidth(fitWidth);
+        setFitHeight(fitHeight);
+        setImage(PLACEHOLDER);
+        ImageService.getInstance().load(this, source);
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,219 @@
+package asmaa.client;
+
+import asmaa.model.CatalogueEntry;
+import asmaa.utils.BinaryCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copie locale des listes du catalogue (sports, villes, centres, terrains,
+ * abonnements), indexée par la clé du cache serveur ("centres:3"...)
+ *
+ * - une liste vérifiée depuis moins de -Dasmaa.client.catalogueTtlSec
+ *   secondes (60 par défaut) est servie sans aucun échange réseau ;
+ * - au-delà, NetworkClient présente sa version au serveur, qui ne renvoie
+ *   la liste que si elle a changé ;
+ * - les listes sont enregistrées sur disque (-Dasmaa.client.catalogueFile,
+ *   ~/.asmaa/catalogue.bin) par un thread d'écriture : au lancement suivant,
+ *   elles n'ont qu'à être revalidées.
+ */
+public class CatalogueStore {
+
+    private static final long FRESH_MS = Long.getLong("asmaa.client.catalogueTtlSec", 60L) * 1000;
+    private static final Path FILE = Paths.get(System.getProperty("asmaa.client.catalogueFile",
+            System.getProperty("user.home") + File.separator + ".asmaa" + File.separator + "catalogue.bin"));
+    // "ASCT" puis le format du fichier
+    private static final int FILE_MAGIC = 0x41534354;
+    private static final int FILE_FORMAT = 1;
+
+    private static CatalogueStore instance;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "catalogue-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CatalogueStore() {
+        load();
+    }
+
+    public static synchronized CatalogueStore getInstance() {
+        if (instance == null) {
+            instance = new CatalogueStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Copie locale d'une liste (null si aucune)
+     */
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Clés des listes connues localement
+     */
+    public List<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Nouvelle version reçue du serveur (une liste vide, peut-être due à une
+     * erreur côté serveur, n'est pas gardée)
+     */
+    public <T> List<T> put(String key, CatalogueEntry received) {
+        Entry entry = new Entry(received.getVersion(), received.getData());
+        if (entry.data.isEmpty()) {
+            return entry.data();
+        }
+        entry.checkedAt = System.currentTimeMillis();
+        entries.put(key, entry);
+        scheduleSave();
+        return entry.data();
+    }
+
+    /**
+     * Le serveur a confirmé que la copie est à jour
+     */
+    public <T> List<T> revalidated(String key, Entry entry) {
+        entry.checkedAt = System.currentTimeMillis();
+        entries.putIfAbsent(key, entry);
+        return entry.data();
+    }
+
+    /**
+     * Oublie les listes dont la clé commence par prefix (ex. après une commande d'administration)
+     */
+    public void invalidate(String prefix) {
+        if (entries.keySet().removeIf(key -> key.startsWith(prefix))) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Termine l'écriture en cours avant la fermeture du client
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Plusieurs changements rapprochés ne donnent qu'une écriture
+     */
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::save);
+            } catch (RejectedExecutionException e) {
+                saveScheduled.set(false);  // Client en cours de fermeture
+            }
+        }
+    }
+
+    private void save() {
+        saveScheduled.set(false);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(buffer);
+            Map<String, Entry> sorted = new TreeMap<>(entries);
+            encoder.writeInt(FILE_MAGIC);
+            encoder.writeInt(FILE_FORMAT);
+            encoder.writeVarInt(sorted.size());
+            for (Map.Entry<String, Entry> entry : sorted.entrySet()) {
+                encoder.writeString(entry.getKey());
+                encoder.writeObject(new CatalogueEntry(entry.getValue().version, entry.getValue().data));
+            }
+            encoder.flush();
+
+            // Fichier temporaire puis remplacement : jamais de fichier à moitié écrit
+            Files.createDirectories(FILE.toAbsolutePath().getParent());
+            Path temp = Files.createTempFile(FILE.toAbsolutePath().getParent(), "catalogue", ".tmp");
+            try {
+                Files.write(temp, buffer.toByteArray());
+                Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println("[CatalogueStore] Catalogue non enregistré: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Relit le fichier du lancement précédent ; ses listes sont à revalider
+     */
+    private void load() {
+        try {
+            BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(Files.readAllBytes(FILE));
+            if (decoder.readInt() != FILE_MAGIC || decoder.readInt() != FILE_FORMAT) {
+                return;  // Autre format : le catalogue sera simplement retéléchargé
+            }
+            int size = decoder.readVarInt();
+            for (int i = 0; i < size; i++) {
+                String key = decoder.readString();
+                CatalogueEntry entry = (CatalogueEntry) decoder.readObject();
+                entries.put(key, new Entry(entry.getVersion(), entry.getData()));
+            }
+        } catch (NoSuchFileException e) {
+            // Premier lancement
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[CatalogueStore] Catalogue local illisible, ignoré: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Liste, version attribuée par le serveur et date de la dernière vérification
+     * (0 pour une liste relue sur disque)
+     */
+    public static final class Entry {
+        private final long version;
+        private final List<?> data;
+        private volatile long checkedAt;
+
+        Entry(long version, List<?> data) {
+            this.version = version;
+            this.data = Collections.unmodifiableList(new ArrayList<>(data));
+        }
+
+        public long version() {
+            return version;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> List<T> data() {
+            return (List<T>) data;
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() - checkedAt < FRESH_MS;
+        }
+    }
+}
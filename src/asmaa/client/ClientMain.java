@@ -3,41 +3,107 @@ package asmaa.client;
 
 import asmaa.utils.SessionManager;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Application principale JavaFX pour ASMAA-Club
+ *
+ * Une seule Scene (feuille de style chargée une fois) dont on remplace la
+ * racine à chaque navigation. Les écrans dont le contrôleur implémente
+ * ViewController sont gardés dans un cache LRU (-Dasmaa.client.viewCache,
+ * 6 écrans par défaut) : revenir sur un écran ne relit ni le FXML ni le CSS.
+ * Les écrans probablement visités ensuite sont préchargés en arrière-plan.
+ *
+ * La connexion au serveur se fait en arrière-plan : l'accueil s'affiche sans
+ * l'attendre, et les listes du catalogue viennent de la copie locale
+ * (CatalogueStore) tant que le serveur ne répond pas. Une fois connecté, la
+ * copie locale est revalidée ; sans serveur, une nouvelle tentative a lieu
+ * toutes les -Dasmaa.client.reconnectSec secondes (5 par défaut).
  */
 public class ClientMain extends Application {
 
+    private static final int VIEW_CACHE_SIZE = Integer.getInteger("asmaa.client.viewCache", 6);
+    private static final long RECONNECT_MS = Long.getLong("asmaa.client.reconnectSec", 5L) * 1000;
+    private static final String TITLE = "ASMAA-Club - Réservation de Terrains Sportifs";
+
+    // Écrans préchargés après l'affichage de chaque écran (contrôleurs ViewController uniquement)
+    private static final Map<String, List<String>> NEXT_VIEWS = new HashMap<>();
+    static {
+        NEXT_VIEWS.put("home.fxml", Arrays.asList("sports.fxml", "login.fxml", "villes.fxml", "register.fxml"));
+        NEXT_VIEWS.put("sports.fxml", Collections.singletonList("reservation.fxml"));
+        NEXT_VIEWS.put("login.fxml", Collections.singletonList("register.fxml"));
+        NEXT_VIEWS.put("register.fxml", Collections.singletonList("login.fxml"));
+    }
+
     private static NetworkClient networkClient;
     private static Stage primaryStage;
+    private static Scene scene;
+
+    // Accédés sur le thread JavaFX uniquement
+    private static final Map<String, View> views = new LinkedHashMap<String, View>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, View> eldest) {
+            return size() > VIEW_CACHE_SIZE;
+        }
+    };
+    private static final Map<String, CompletableFuture<View>> preloads = new HashMap<>();
+    private static View currentView;
+    private static volatile boolean closing;
+
+    private static final ExecutorService preloader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "view-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Override
     public void start(Stage stage) {
         try {
             primaryStage = stage;
 
-            // Connecter au serveur
+            // Connecter au serveur, en parallèle du chargement de l'accueil
             networkClient = new NetworkClient();
-            if (!networkClient.connect()) {
-                showErrorAndExit("Impossible de se connecter au serveur");
-                return;
-            }
+            connectInBackground();
+
+            // Scène unique : seule sa racine change d'un écran à l'autre
+            scene = new Scene(new StackPane(), 1200, 800);
+            scene.getStylesheets().add(
+                    ClientMain.class.getResource("/css/styles.css").toExternalForm()
+            );
+            primaryStage.setScene(scene);
 
             // Charger la page d'accueil
-            showHomePage();
+            showView("home.fxml");
 
             // Configuration de la fenêtre
-            primaryStage.setTitle("ASMAA-Club - Réservation de Terrains Sportifs");
+            primaryStage.setTitle(networkClient.isConnected() ? TITLE : TITLE + " (hors ligne)");
             primaryStage.setResizable(true);
             primaryStage.setMaximized(true);
 
             // Handler pour la fermeture
             primaryStage.setOnCloseRequest(event -> {
+                closing = true;
+                System.out.print(TaskService.getInstance().getLatencyReport());
+                TaskService.getInstance().shutdown();
+                preloader.shutdownNow();
+                ImageService.getInstance().shutdown();
+                CatalogueStore.getInstance().shutdown();
                 networkClient.disconnect();
                 SessionManager.getInstance().logout();
             });
@@ -51,53 +117,115 @@ public class ClientMain extends Application {
     }
 
     /**
-     * Affiche la page d'accueil
+     * Tente la connexion sans bloquer l'interface ; une fois connecté, revalide
+     * le catalogue local, sinon réessaie plus tard
+     */
+    private static void connectInBackground() {
+        networkClient.connectAsync().thenAccept(connected -> {
+            if (closing) {
+                return;
+            }
+            if (connected) {
+                Platform.runLater(() -> primaryStage.setTitle(TITLE));
+                networkClient.reconcileCatalogue().thenAccept(changed -> {
+                    if (changed > 0) {
+                        System.out.println("✓ Catalogue local mis à jour (" + changed + " listes)");
+                    }
+                });
+            } else {
+                Platform.runLater(() -> primaryStage.setTitle(TITLE + " (hors ligne)"));
+                CompletableFuture.delayedExecutor(RECONNECT_MS, TimeUnit.MILLISECONDS)
+                        .execute(ClientMain::connectInBackground);
+            }
+        });
+    }
+
+    /**
+     * Change la scène actuelle
+     */
+    public static void changeScene(String fxmlFile) {
+        try {
+            showView(fxmlFile);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Erreur lors du changement de scène: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remplace la racine de la scène par l'écran demandé (cache, préchargement
+     * ou lecture du FXML), puis précharge les écrans suivants probables
+     */
+    private static void showView(String fxmlFile) throws Exception {
+        // Les chargements de la vue quittée ne doivent plus la mettre à jour
+        TaskService.getInstance().cancelScene();
+        if (currentView != null && currentView.controller instanceof ViewController) {
+            ((ViewController) currentView.controller).onHide();
+        }
+
+        View view = views.get(fxmlFile);
+        if (view == null) {
+            CompletableFuture<View> preload = preloads.remove(fxmlFile);
+            // Préchargement en cours : l'attendre plutôt que relire le FXML
+            view = preload != null ? preload.exceptionally(e -> null).join() : null;
+            if (view == null) {
+                view = loadView(fxmlFile);
+            }
+            if (view.controller instanceof ViewController) {
+                views.put(fxmlFile, view);
+            }
+        }
+
+        currentView = view;
+        scene.setRoot(view.root);
+        if (view.controller instanceof ViewController) {
+            ((ViewController) view.controller).onShow();
+        }
+
+        preloadNext(fxmlFile);
+    }
+
+    /**
+     * Lit un FXML (n'importe quel thread tant que la vue n'est pas affichée)
      */
-    private void showHomePage() throws Exception {
-        // ✅ Chemin FXML corrigé : commence toujours par /
+    private static View loadView(String fxmlFile) throws Exception {
         FXMLLoader loader = new FXMLLoader(
-                getClass().getResource("/fxml/home.fxml")
+                ClientMain.class.getResource("/fxml/" + fxmlFile)
         );
 
-        // Vérification rapide
         if (loader.getLocation() == null) {
-            throw new RuntimeException("FXML home.fxml introuvable ! Vérifie le chemin et Resources Root.");
+            throw new RuntimeException("FXML " + fxmlFile + " introuvable !");
         }
 
         Parent root = loader.load();
-
-        Scene scene = new Scene(root, 1200, 800);
-        scene.getStylesheets().add(
-                getClass().getResource("/css/styles.css").toExternalForm()
-        );
-
-        primaryStage.setScene(scene);
+        return new View(root, loader.getController());
     }
 
     /**
-     * Change la scène actuelle
+     * Précharge en arrière-plan les écrans suivants probables absents du cache
      */
-    public static void changeScene(String fxmlFile) {
-        try {
-            FXMLLoader loader = new FXMLLoader(
-                    ClientMain.class.getResource("/fxml/" + fxmlFile)
-            );
-
-            if (loader.getLocation() == null) {
-                throw new RuntimeException("FXML " + fxmlFile + " introuvable !");
+    private static void preloadNext(String fxmlFile) {
+        for (String next : NEXT_VIEWS.getOrDefault(fxmlFile, Collections.emptyList())) {
+            if (views.containsKey(next) || preloads.containsKey(next)
+                    || ClientMain.class.getResource("/fxml/" + next) == null) {
+                continue;
             }
 
-            Parent root = loader.load();
-            Scene scene = new Scene(root, 1200, 800);
-            scene.getStylesheets().add(
-                    ClientMain.class.getResource("/css/styles.css").toExternalForm()
-            );
-
-            primaryStage.setScene(scene);
+            CompletableFuture<View> preload = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return loadView(next);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, preloader);
+            preloads.put(next, preload);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Erreur lors du changement de scène: " + e.getMessage());
+            preload.whenComplete((view, error) -> Platform.runLater(() -> {
+                if (preloads.remove(next, preload) && view != null
+                        && view.controller instanceof ViewController && !views.containsKey(next)) {
+                    views.put(next, view);
+                }
+            }));
         }
     }
 
@@ -115,6 +243,19 @@ public class ClientMain extends Application {
         return primaryStage;
     }
 
+    /**
+     * Racine d'un écran chargé et son contrôleur
+     */
+    private static final class View {
+        private final Parent root;
+        private final Object controller;
+
+        View(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
     /**
      * Affiche une erreur et quitte
      */
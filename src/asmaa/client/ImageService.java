@@ -0,0 +1,290 @@
+package asmaa.client;
+
+import asmaa.utils.ImageScaler;
+import javafx.application.Platform;
+import javafx.geometry.Side;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundImage;
+import javafx.scene.layout.BackgroundPosition;
+import javafx.scene.layout.BackgroundRepeat;
+import javafx.scene.layout.BackgroundSize;
+import javafx.scene.layout.Region;
+import javafx.stage.Screen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Images de /images décodées hors du thread JavaFX, à leur taille d'affichage
+ *
+ * - décodage en arrière-plan (-Dasmaa.client.imageThreads, 2 par défaut),
+ *   avec sous-échantillonnage à la lecture : une photo de 4000 px affichée
+ *   sur 400 px n'est jamais décodée en pleine résolution ;
+ * - cache mémoire LRU borné en octets décodés (-Dasmaa.client.imageMemoryMb, 48) ;
+ * - cache disque des variantes réduites (-Dasmaa.client.imageCache,
+ *   ~/.asmaa/images), invalidé si l'image source change : les lancements
+ *   suivants ne relisent que la petite variante.
+ *
+ * Les tailles demandées sont en pixels logiques, multipliées par l'échelle
+ * de l'écran (HiDPI). L'image produite couvre la zone demandée en gardant
+ * ses proportions, sans jamais dépasser la résolution de la source.
+ *
+ * Si AssetOptimizer a produit /images/variants (manifest.properties), la
+ * plus petite variante qui couvre la zone est lue directement, sans passer
+ * par ImageIO ni le cache disque. Les variantes d'une source modifiée depuis
+ * leur génération sont ignorées.
+ */
+public class ImageService {
+
+    private static final int THREADS = Integer.getInteger("asmaa.client.imageThreads", 2);
+    private static final long MEMORY_BYTES = Long.getLong("asmaa.client.imageMemoryMb", 48L) * 1024 * 1024;
+    private static final Path DISK_CACHE = Paths.get(System.getProperty("asmaa.client.imageCache",
+            System.getProperty("user.home") + File.separator + ".asmaa" + File.separator + "images"));
+    private static final String VARIANTS = "/images/variants/";
+
+    private static ImageService instance;
+
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<Image>> inflight = new ConcurrentHashMap<>();
+    // Accès sous verrou (this) ; ordre d'accès pour l'éviction LRU
+    private final LinkedHashMap<String, Image> memory = new LinkedHashMap<>(32, 0.75f, true);
+    private long memoryBytes;
+    private final double outputScale;
+    private final Properties manifest = loadManifest();
+
+    private ImageService() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread thread = new Thread(r, "image-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        outputScale = screenScale();
+    }
+
+    public static synchronized ImageService getInstance() {
+        if (instance == null) {
+            instance = new ImageService();
+        }
+        return instance;
+    }
+
+    /**
+     * Affiche l'image dans la vue dès qu'elle est prête, à la taille fitWidth x fitHeight
+     */
+    public void load(ImageView view, String name) {
+        request(name, view.getFitWidth(), view.getFitHeight(), view::setImage);
+    }
+
+    /**
+     * Image de fond couvrant la région (équivalent de -fx-background-size: cover)
+     */
+    public void loadBackground(Region region, String name, double width, double height) {
+        request(name, width, height, image -> region.setBackground(new Background(new BackgroundImage(
+                image, BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT,
+                new BackgroundPosition(Side.LEFT, 0.5, true, Side.TOP, 0.5, true),
+                new BackgroundSize(BackgroundSize.AUTO, BackgroundSize.AUTO, false, false, false, true)))));
+    }
+
+    /**
+     * Image réduite pour une zone de width x height pixels logiques
+     */
+    public CompletableFuture<Image> get(String name, double width, double height) {
+        int targetWidth = (int) Math.ceil(Math.max(1, width) * outputScale);
+        int targetHeight = (int) Math.ceil(Math.max(1, height) * outputScale);
+        String key = name + "@" + targetWidth + "x" + targetHeight;
+
+        Image cached = fromMemory(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        CompletableFuture<Image> existing = inflight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        executor.execute(() -> {
+            try {
+                Image image = decode(name, targetWidth, targetHeight);
+                remember(key, image);
+                created.complete(image);
+            } catch (Exception e) {
+                created.completeExceptionally(e);
+            } finally {
+                inflight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Applique l'image sur le thread JavaFX ; tout de suite si elle est déjà en mémoire
+     */
+    private void request(String name, double width, double height, Consumer<Image> apply) {
+        CompletableFuture<Image> future = get(name, width, height);
+        Image ready = future.getNow(null);
+        if (ready != null && Platform.isFxApplicationThread()) {
+            apply.accept(ready);
+            return;
+        }
+
+        future.whenComplete((image, error) -> {
+            if (error != null) {
+                System.err.println("[ImageService] Image " + name + " non chargée: " + error.getMessage());
+            } else {
+                Platform.runLater(() -> apply.accept(image));
+            }
+        });
+    }
+
+    /**
+     * Variante pré-générée, ou variante du cache disque créée depuis la
+     * source si absente ou périmée
+     */
+    private Image decode(String name, int targetWidth, int targetHeight) throws IOException {
+        URL source = ImageService.class.getResource("/images/" + name);
+        URLConnection connection = source != null ? source.openConnection() : null;
+        long sourceLength = connection != null ? connection.getContentLengthLong() : -1;
+
+        URL prepared = pickVariant(name, targetWidth, targetHeight, sourceLength);
+        if (prepared != null) {
+            return checked(new Image(prepared.toExternalForm()));
+        }
+        if (source == null) {
+            throw new IOException("Image introuvable: " + name);
+        }
+
+        boolean png = name.toLowerCase().endsWith(".png");
+        long version = sourceLength * 31 + connection.getLastModified();
+        Path variant = DISK_CACHE.resolve(baseName(name) + "-" + targetWidth + "x" + targetHeight + "-"
+                + Long.toHexString(version) + (png ? ".png" : ".jpg"));
+
+        if (!Files.isRegularFile(variant)) {
+            try {
+                int[] size = ImageScaler.readSize(source);
+                double scale = ImageScaler.coverScale(size[0], size[1], targetWidth, targetHeight);
+                ImageScaler.write(ImageScaler.readScaled(source, scale, png), variant, png, false);
+            } catch (IOException | RuntimeException e) {
+                // Format non lu par ImageIO (JPEG CMYK...) ou disque en lecture seule :
+                // JavaFX réduit l'image au décodage, sans cache disque
+                System.err.println("[ImageService] Variante " + variant.getFileName() + " non créée: " + e);
+                return checked(new Image(source.toExternalForm(), targetWidth, targetHeight, true, true));
+            }
+        }
+        return checked(new Image(variant.toUri().toString()));
+    }
+
+    /**
+     * Plus petite variante du manifeste couvrant la zone (null si aucune ou
+     * si la source a changé) ; sans source livrée, la plus grande variante
+     */
+    private URL pickVariant(String name, int targetWidth, int targetHeight, long sourceLength) {
+        String sizes = manifest.getProperty(name);
+        if (sizes == null || (sourceLength >= 0
+                && !String.valueOf(sourceLength).equals(manifest.getProperty(name + ".source")))) {
+            return null;
+        }
+
+        String extension = "." + manifest.getProperty(name + ".format", name.substring(name.lastIndexOf('.') + 1));
+        int chosen = -1;
+        int largest = -1;
+        for (String size : sizes.split(",")) {
+            String[] dimensions = size.trim().split("x");
+            int width = Integer.parseInt(dimensions[0]);
+            int height = Integer.parseInt(dimensions[1]);
+            if (width >= targetWidth && height >= targetHeight && (chosen < 0 || width < chosen)) {
+                chosen = width;
+            }
+            largest = Math.max(largest, width);
+        }
+        if (chosen < 0 && sourceLength < 0) {
+            chosen = largest;
+        }
+        return chosen < 0 ? null
+                : ImageService.class.getResource(VARIANTS + baseName(name) + "-" + chosen + extension);
+    }
+
+    private static Properties loadManifest() {
+        Properties properties = new Properties();
+        try (InputStream in = ImageService.class.getResourceAsStream(VARIANTS + "manifest.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("[ImageService] Manifeste des variantes illisible: " + e.getMessage());
+        }
+        return properties;
+    }
+
+    private static String baseName(String name) {
+        return name.substring(0, Math.max(0, name.lastIndexOf('.')));
+    }
+
+    private static Image checked(Image image) throws IOException {
+        if (image.isError()) {
+            throw new IOException("Décodage impossible", image.getException());
+        }
+        return image;
+    }
+
+    private synchronized Image fromMemory(String key) {
+        return memory.get(key);
+    }
+
+    /**
+     * Garde l'image en mémoire, en oubliant les moins récemment utilisées au-delà du budget
+     */
+    private synchronized void remember(String key, Image image) {
+        Image previous = memory.put(key, image);
+        if (previous != null) {
+            memoryBytes -= sizeOf(previous);
+        }
+        memoryBytes += sizeOf(image);
+
+        Iterator<Map.Entry<String, Image>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > MEMORY_BYTES && memory.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Image> entry = eldest.next();
+            if (entry.getValue() == image) {
+                continue;
+            }
+            memoryBytes -= sizeOf(entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private static double screenScale() {
+        try {
+            return Math.max(1.0, Screen.getPrimary().getOutputScaleX());
+        } catch (RuntimeException e) {
+            return 1.0;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,37 +1,159 @@
 package asmaa.client;
 
 import asmaa.model.*;
+import asmaa.utils.BinaryCodec;
+import asmaa.utils.FrameUtil;
+import asmaa.utils.Opcode;
 import java.io.*;
 import java.net.Socket;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Client réseau pour communiquer avec le serveur
  * Gère toutes les requêtes vers le serveur
+ *
+ * Serveur : -Dasmaa.server.host (localhost), -Dasmaa.server.port (5000)
+ * Protocole (-Dasmaa.client.protocol) :
+ *  - binary : trames binaires à opcodes, codecs BinaryCodec (par défaut)
+ *  - framed : une trame de sérialisation Java par requête
+ *  - legacy : ancien flux ObjectOutputStream continu
+ * Si le serveur refuse la poignée de main binaire, le client se reconnecte
+ * automatiquement avec l'ancien protocole.
+ *
+ * Les méthodes xxxAsync() retournent un CompletableFuture : plusieurs requêtes
+ * peuvent être en vol sur la même connexion. Un thread lecteur associe chaque
+ * réponse à sa requête (par requestId en binaire, dans l'ordre d'envoi en
+ * mode tramé, le serveur répondant dans l'ordre). En mode legacy les requêtes
+ * sont simplement sérialisées. Les méthodes synchrones historiques attendent
+ * le futur correspondant.
+ *
+ * En binaire, le client peut s'abonner aux disponibilités d'une grille : le
+ * serveur pousse alors des trames DISPONIBILITE_UPDATE (requestId 0),
+ * transmises à l'écouteur enregistré par setDisponibiliteListener().
+ *
+ * Les listes du catalogue (sports, villes, centres, terrains, abonnements)
+ * passent par CatalogueStore : copie locale servie sans échange tant
+ * qu'elle est récente, puis revalidée par GET_CATALOGUE avec sa version (le
+ * serveur ne renvoie la liste que si elle a changé). Face à un serveur qui
+ * ne connaît pas GET_CATALOGUE, et toujours en ancien protocole, les
+ * commandes d'origine sont utilisées.
+ * Un client créé sans copie locale (outils de charge) utilise toujours les
+ * commandes d'origine.
+ *
+ * connectAsync() se connecte en arrière-plan : d'ici là (ou si le serveur
+ * est injoignable), les listes du catalogue sont servies depuis la copie
+ * enregistrée sur disque, et les autres requêtes attendent la fin de la
+ * tentative de connexion. Une fois connecté, reconcileCatalogue() revalide
+ * toute la copie locale en une rafale de requêtes.
  */
 public class NetworkClient {
 
-    private static final String SERVER_HOST = "localhost";
-    private static final int SERVER_PORT = 5000;
+    private static final String SERVER_HOST = System.getProperty("asmaa.server.host", "localhost");
+    private static final int SERVER_PORT = Integer.getInteger("asmaa.server.port", 5000);
+    private static final String PROTOCOL = System.getProperty("asmaa.client.protocol", "binary");
+    private static final long RESPONSE_TIMEOUT_MS = 30000;
 
+    private final String host;
+    private final int port;
     private Socket socket;
-    private ObjectOutputStream output;
-    private ObjectInputStream input;
-    private boolean connected;
+    private String protocol;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile CompletableFuture<Boolean> connection = CompletableFuture.completedFuture(false);
+
+    // Ancien protocole : flux continus, une requête à la fois
+    private ObjectOutputStream legacyOutput;
+    private ObjectInputStream legacyInput;
+
+    // Protocoles tramés : écriture sous verrou, lecture par le thread lecteur
+    private DataOutputStream frameOutput;
+    private DataInputStream frameInput;
+    private final Object writeLock = new Object();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<Object>> pendingById = new ConcurrentHashMap<>();
+    private final Queue<CompletableFuture<Object>> pendingInOrder = new ConcurrentLinkedQueue<>();
+    private volatile Consumer<DisponibiliteDelta> disponibiliteListener;
+    private final CatalogueStore catalogue;
+    private volatile boolean catalogueVersions = true;
+
+    /**
+     * Écriture des arguments d'une requête
+     */
+    @FunctionalInterface
+    private interface RequestArgs {
+        void write(ObjectOutput out) throws IOException;
+    }
+
+    public NetworkClient() {
+        this(SERVER_HOST, SERVER_PORT);
+    }
+
+    public NetworkClient(String host, int port) {
+        this(host, port, CatalogueStore.getInstance());
+    }
+
+    /**
+     * Client dont les listes du catalogue sont gardées dans catalogue
+     * (null : aucune copie locale, chaque liste est redemandée au serveur)
+     */
+    public NetworkClient(String host, int port, CatalogueStore catalogue) {
+        this.host = host;
+        this.port = port;
+        this.catalogue = catalogue;
+    }
 
     // ==================== CONNEXION ====================
+
+    /**
+     * Lance la connexion sans bloquer l'appelant (la tentative en cours est
+     * réutilisée) ; le futur indique si elle a abouti
+     */
+    public synchronized CompletableFuture<Boolean> connectAsync() {
+        if (connected || !connection.isDone()) {
+            return connection;
+        }
+        CompletableFuture<Boolean> attempt = new CompletableFuture<>();
+        connection = attempt;
+        Thread thread = new Thread(() -> {
+            boolean success = connect();
+            if (success && closed) {
+                disconnect();  // Client fermé pendant la tentative
+                success = false;
+            }
+            attempt.complete(success);
+        }, "network-connect");
+        thread.setDaemon(true);
+        thread.start();
+        return attempt;
+    }
+
     public boolean connect() {
         try {
-            socket = new Socket(SERVER_HOST, SERVER_PORT);
-            socket.setSoTimeout(30000); // Timeout de 30 secondes
-            output = new ObjectOutputStream(socket.getOutputStream());
-            output.flush();
-            input = new ObjectInputStream(socket.getInputStream());
+            if (!open(PROTOCOL)) {
+                // Serveur plus ancien : repli sur l'ancien protocole
+                socket.close();
+                open("legacy");
+            }
+            // Ancien protocole : un serveur sans GET_CATALOGUE ne lirait pas ses
+            // arguments et le flux continu serait désynchronisé, d'où les commandes d'origine
+            catalogueVersions = !isLegacy();
             connected = true;
-            System.out.println("✓ Connecté au serveur");
+
+            if (!isLegacy()) {
+                Thread reader = new Thread(this::readLoop, "network-reader");
+                reader.setDaemon(true);
+                reader.start();
+            }
+
+            System.out.println("✓ Connecté au serveur (protocole " + protocol + ")");
             return true;
         } catch (java.net.ConnectException e) {
             System.err.println("✗ Impossible de se connecter au serveur. Vérifiez que le serveur est démarré.");
@@ -45,25 +167,85 @@ public class NetworkClient {
         }
     }
 
+    /**
+     * Ouvre la socket et effectue la poignée de main du protocole demandé
+     * Retourne false si le serveur ne parle pas ce protocole
+     */
+    private boolean open(String requested) throws IOException {
+        protocol = requested;
+        socket = new Socket(host, port);
+        socket.setSoTimeout(30000); // Timeout de 30 secondes
+        socket.setTcpNoDelay(true);  // Requêtes courtes : ne pas attendre l'ACK précédent
+
+        if (isLegacy()) {
+            legacyOutput = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            legacyOutput.flush();
+            legacyInput = new ObjectInputStream(socket.getInputStream());
+            return true;
+        }
+
+        frameOutput = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        frameInput = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        if (isBinary()) {
+            frameOutput.writeInt(FrameUtil.MAGIC_BINARY);
+            frameOutput.writeInt(BinaryCodec.PROTOCOL_VERSION);
+            frameOutput.flush();
+            try {
+                int accepted = frameInput.readInt();
+                if (accepted < 1 || accepted > BinaryCodec.PROTOCOL_VERSION) {
+                    return false;
+                }
+            } catch (EOFException | java.net.SocketException e) {
+                return false;
+            }
+        } else {
+            frameOutput.writeInt(FrameUtil.MAGIC_FRAMED);
+            frameOutput.flush();
+        }
+
+        // Le thread lecteur attend indéfiniment ; les délais sont portés par les futurs
+        socket.setSoTimeout(0);
+        return true;
+    }
+
+    private boolean isLegacy() {
+        return "legacy".equals(protocol);
+    }
+
+    private boolean isBinary() {
+        return "binary".equals(protocol);
+    }
+
     public void disconnect() {
+        closed = true;
         try {
-            if (connected && output != null) {
+            if (connected) {
                 try {
-                    sendCommand("DISCONNECT");
+                    // Pas de réponse attendue : le serveur ferme la session
+                    sendOneWay("DISCONNECT");
                 } catch (IOException e) {
                     // Ignorer si déjà déconnecté ou connexion fermée
                 }
             }
-            if (input != null) {
+            connected = false;
+            if (legacyInput != null) {
                 try {
-                    input.close();
+                    legacyInput.close();
                 } catch (IOException e) {
                     // Ignorer
                 }
             }
-            if (output != null) {
+            if (legacyOutput != null) {
                 try {
-                    output.close();
+                    legacyOutput.close();
+                } catch (IOException e) {
+                    // Ignorer
+                }
+            }
+            if (frameOutput != null) {
+                try {
+                    frameOutput.close();
                 } catch (IOException e) {
                     // Ignorer
                 }
@@ -75,257 +257,564 @@ public class NetworkClient {
                     // Ignorer
                 }
             }
-            connected = false;
+            failPending(new IOException("Client déconnecté"));
             System.out.println("✓ Déconnecté du serveur");
         } catch (Exception e) {
             System.err.println("Erreur lors de la déconnexion: " + e.getMessage());
         }
     }
 
-    private void sendCommand(String command) throws IOException {
-        if (!connected || output == null) {
-            throw new IOException("Non connecté au serveur");
+    public boolean isConnected() {
+        return connected;
+    }
+
+    // ==================== ENVOI / RÉCEPTION ====================
+
+    /**
+     * Envoie une requête ; le futur reçoit les données de la réponse SUCCESS
+     * ou échoue avec le message de la réponse ERROR
+     */
+    private <T> CompletableFuture<T> send(String command, RequestArgs args) {
+        if (!connected && !connection.isDone()) {
+            // Connexion en cours (démarrage) : la requête part dès qu'elle aboutit
+            return connection.thenCompose(success -> send(command, args));
         }
-        output.writeObject(command);
-        output.flush();
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            if (!connected) {
+                throw new IOException("Non connecté au serveur");
+            }
+            if (isLegacy()) {
+                sendLegacy(command, args, future);
+            } else {
+                sendFrame(command, args, future);
+            }
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> typed = (CompletableFuture<T>) future;
+        return typed;
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T readResponse() throws IOException, ClassNotFoundException {
+    /**
+     * Encode la requête dans une trame et l'envoie sans attendre la réponse
+     */
+    private void sendFrame(String command, RequestArgs args, CompletableFuture<Object> future)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int requestId = nextRequestId.incrementAndGet();
+        encodeRequest(buffer, requestId, command, args);
+
+        synchronized (writeLock) {
+            // Enregistrer avant d'écrire : la réponse peut arriver aussitôt
+            if (future != null) {
+                if (isBinary()) {
+                    pendingById.put(requestId, future);
+                } else {
+                    pendingInOrder.add(future);
+                }
+            }
+            try {
+                FrameUtil.writeFrame(frameOutput, buffer.toByteArray());
+            } catch (IOException e) {
+                if (future != null) {
+                    pendingById.remove(requestId);
+                    pendingInOrder.remove(future);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void encodeRequest(ByteArrayOutputStream buffer, int requestId,
+                               String command, RequestArgs args) throws IOException {
+        ObjectOutput out;
+        if (isBinary()) {
+            // En-tête [opcode][requestId], les arguments suivent dans la même trame
+            BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(buffer);
+            encoder.writeByte(Opcode.fromCommand(command).getCode());
+            encoder.writeInt(requestId);
+            out = encoder;
+        } else {
+            // Chaque trame porte son propre flux de sérialisation
+            out = new ObjectOutputStream(buffer);
+            out.writeObject(command);
+        }
+        if (args != null) {
+            args.write(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Ancien protocole : requête et réponse sous le même verrou
+     */
+    private void sendLegacy(String command, RequestArgs args, CompletableFuture<Object> future)
+            throws IOException {
+        synchronized (writeLock) {
+            try {
+                legacyOutput.writeObject(command);
+                if (args != null) {
+                    args.write(legacyOutput);
+                }
+                legacyOutput.flush();
+                if (future == null) {
+                    return;
+                }
+
+                String status = (String) legacyInput.readObject();
+                Object data = legacyInput.readObject();
+                complete(future, status, data);
+
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Réponse illisible", e);
+            } catch (java.net.SocketException e) {
+                connected = false;
+                throw new IOException("Connexion perdue avec le serveur", e);
+            } catch (EOFException e) {
+                connected = false;
+                throw new IOException("Connexion fermée par le serveur", e);
+            }
+        }
+    }
+
+    private void sendOneWay(String command) throws IOException {
+        if (isLegacy()) {
+            sendLegacy(command, null, null);
+        } else {
+            sendFrame(command, null, null);
+        }
+    }
+
+    /**
+     * Thread lecteur : démultiplexe les trames réponses vers les futurs en attente
+     */
+    private void readLoop() {
         try {
-            String status = (String) input.readObject();
-            Object data = input.readObject();
+            while (connected) {
+                byte[] frame = FrameUtil.readFrame(frameInput);
+                CompletableFuture<Object> future;
+                ObjectInput in;
+
+                if (isBinary()) {
+                    BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(frame);
+                    byte opcode = decoder.readByte();
+                    int requestId = decoder.readInt();
+                    if (opcode == Opcode.DISPONIBILITE_UPDATE.getCode()) {
+                        onDisponibiliteUpdate(decoder);
+                        continue;
+                    }
+                    future = pendingById.remove(requestId);
+                    in = decoder;
+                } else {
+                    future = pendingInOrder.poll();
+                    in = new ObjectInputStream(new ByteArrayInputStream(frame));
+                }
 
-            if ("ERROR".equals(status)) {
-                throw new RuntimeException((String) data);
+                if (future == null) {
+                    System.err.println("Réponse sans requête correspondante ignorée");
+                    continue;
+                }
+
+                try {
+                    String status = (String) in.readObject();
+                    complete(future, status, in.readObject());
+                } catch (ClassNotFoundException | IOException e) {
+                    future.completeExceptionally(e);
+                }
             }
-            return (T) data;
-        } catch (java.net.SocketException e) {
-            connected = false;
-            throw new IOException("Connexion perdue avec le serveur", e);
         } catch (EOFException e) {
+            failPending(new IOException("Connexion fermée par le serveur", e));
+        } catch (IOException e) {
+            failPending(new IOException("Connexion perdue avec le serveur", e));
+        } finally {
             connected = false;
-            throw new IOException("Connexion fermée par le serveur", e);
         }
     }
 
-    public boolean isConnected() {
-        return connected;
+    /**
+     * Trame poussée par le serveur : transmise à l'écouteur, s'il y en a un
+     */
+    private void onDisponibiliteUpdate(ObjectInput in) {
+        Consumer<DisponibiliteDelta> listener = disponibiliteListener;
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.accept((DisponibiliteDelta) in.readObject());
+        } catch (ClassNotFoundException | IOException | RuntimeException e) {
+            System.err.println("Mise à jour des disponibilités ignorée: " + e.getMessage());
+        }
     }
 
-    // ==================== AUTHENTIFICATION ====================
-    public User login(String username, String password) {
-        try {
-            sendCommand("LOGIN");
-            output.writeObject(username);
-            output.writeObject(password);
-            output.flush();
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la connexion: " + e.getMessage());
-            return null;
+    private static void complete(CompletableFuture<Object> future, String status, Object data) {
+        if ("ERROR".equals(status)) {
+            future.completeExceptionally(new RuntimeException((String) data));
+        } else {
+            future.complete(data);
         }
     }
 
-    public boolean register(User user) {
+    private void failPending(IOException cause) {
+        connected = false;
+        for (Integer requestId : pendingById.keySet()) {
+            CompletableFuture<Object> future = pendingById.remove(requestId);
+            if (future != null) {
+                future.completeExceptionally(cause);
+            }
+        }
+        CompletableFuture<Object> future;
+        while ((future = pendingInOrder.poll()) != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Attend la réponse pour les méthodes synchrones ; valeur par défaut en cas d'erreur
+     */
+    private static <T> T await(CompletableFuture<T> future, String operation, T defaultValue) {
         try {
-            sendCommand("REGISTER");
-            output.writeObject(user);
-            output.flush();
-            String response = readResponse();
-            return "Inscription réussie".equals(response);
-        } catch (Exception e) {
-            System.err.println("Erreur lors de l'inscription: " + e.getMessage());
-            return false;
+            return future.get(RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            System.err.println("Erreur " + operation + ": " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            System.err.println("Erreur " + operation + ": pas de réponse du serveur");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Liste du catalogue : copie locale si elle est récente ou si le client
+     * n'est pas connecté, sinon revalidée auprès du serveur avec sa version
+     * (requête d'origine command/args pour un serveur sans GET_CATALOGUE) ;
+     * la copie locale sert aussi de repli si l'échange échoue
+     */
+    private <T> CompletableFuture<List<T>> getCatalogue(String key, String command, RequestArgs args) {
+        if (catalogue == null) {
+            return send(command, args);
+        }
+        CatalogueStore.Entry cached = catalogue.get(key);
+        if (cached != null && (cached.isFresh() || !connected)) {
+            return CompletableFuture.completedFuture(cached.data());
+        }
+        if (!connected && !connection.isDone()) {
+            // Le protocole, donc le choix de GET_CATALOGUE, n'est connu qu'une fois connecté
+            return connection.thenCompose(success -> getCatalogue(key, command, args));
+        }
+        if (!catalogueVersions) {
+            return this.<List<T>>send(command, args)
+                    .thenApply(data -> catalogue.put(key, new CatalogueEntry(0, data)));
+        }
+
+        long knownVersion = cached != null ? cached.version() : 0;
+        return this.<CatalogueEntry>send("GET_CATALOGUE", out -> {
+            out.writeObject(key);
+            out.writeLong(knownVersion);
+        }).handle((entry, error) -> {
+            if (error == null) {
+                List<T> data = entry.isNotModified()
+                        ? catalogue.revalidated(key, cached)
+                        : catalogue.put(key, entry);
+                return CompletableFuture.completedFuture(data);
+            }
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause.getMessage() != null && cause.getMessage().startsWith("Commande inconnue")) {
+                catalogueVersions = false;  // Serveur plus ancien
+                return this.<T>getCatalogue(key, command, args);
+            }
+            if (cached != null && cause instanceof IOException) {
+                return CompletableFuture.completedFuture(cached.<T>data());  // Connexion perdue
+            }
+            CompletableFuture<List<T>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(cause);
+            return failed;
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * Revalide en arrière-plan toutes les listes locales qui ne sont plus
+     * récentes (après la connexion, pour la copie relue sur disque) ; le
+     * futur donne le nombre de listes qui ont changé
+     */
+    public CompletableFuture<Integer> reconcileCatalogue() {
+        if (!connected || !catalogueVersions || catalogue == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        for (String key : catalogue.keys()) {
+            CatalogueStore.Entry cached = catalogue.get(key);
+            if (cached == null || cached.isFresh()) {
+                continue;
+            }
+            checks.add(this.<CatalogueEntry>send("GET_CATALOGUE", out -> {
+                out.writeObject(key);
+                out.writeLong(cached.version());
+            }).thenApply(entry -> {
+                if (entry.isNotModified()) {
+                    catalogue.revalidated(key, cached);
+                    return false;
+                }
+                catalogue.put(key, entry);
+                return true;
+            }).exceptionally(error -> false));
         }
+
+        return CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> (int) checks.stream().filter(CompletableFuture::join).count());
+    }
+
+    // ==================== AUTHENTIFICATION ====================
+    public CompletableFuture<User> loginAsync(String username, String password) {
+        return send("LOGIN", out -> {
+            out.writeObject(username);
+            out.writeObject(password);
+        });
+    }
+
+    public User login(String username, String password) {
+        return await(loginAsync(username, password), "lors de la connexion", null);
+    }
+
+    public CompletableFuture<Boolean> registerAsync(User user) {
+        return this.<String>send("REGISTER", out -> out.writeObject(user))
+                .thenApply("Inscription réussie"::equals);
+    }
+
+    public boolean register(User user) {
+        return await(registerAsync(user), "lors de l'inscription", false);
     }
 
     // ==================== SPORTS / TERRAINS ====================
+    public CompletableFuture<List<Sport>> getSportsAsync() {
+        return getCatalogue("sports", "GET_SPORTS", null);
+    }
+
     public List<Sport> getSports() {
-        try {
-            sendCommand("GET_SPORTS");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getSports: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getSportsAsync(), "getSports", new ArrayList<>());
+    }
+
+    public CompletableFuture<List<Ville>> getVillesAsync() {
+        return getCatalogue("villes", "GET_VILLES", null);
     }
 
     public List<Ville> getVilles() {
-        try {
-            sendCommand("GET_VILLES");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getVilles: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getVillesAsync(), "getVilles", new ArrayList<>());
+    }
+
+    public CompletableFuture<List<Terrain>> getTerrainsAsync(int sportId, int centreId) {
+        return getCatalogue("terrains:" + sportId + ":" + centreId, "GET_TERRAINS", out -> {
+            out.writeInt(sportId);
+            out.writeInt(centreId);
+        });
     }
 
     public List<Terrain> getTerrains(int sportId, int centreId) {
-        try {
-            sendCommand("GET_TERRAINS");
-            output.writeInt(sportId);
-            output.writeInt(centreId);
-            output.flush();
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getTerrains: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getTerrainsAsync(sportId, centreId), "getTerrains", new ArrayList<>());
+    }
+
+    public CompletableFuture<List<Centre>> getCentresAsync(int villeId) {
+        return getCatalogue("centres:" + villeId, "GET_CENTRES", out -> out.writeInt(villeId));
     }
 
     public List<Centre> getCentres(int villeId) {
-        try {
-            sendCommand("GET_CENTRES");
-            output.writeInt(villeId);
-            output.flush();
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getCentres: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getCentresAsync(villeId), "getCentres", new ArrayList<>());
     }
 
     // ==================== RÉSERVATIONS ====================
+    public CompletableFuture<Boolean> checkDisponibiliteAsync(int terrainId, LocalDate date,
+                                                              LocalTime heureDebut, LocalTime heureFin) {
+        return send("CHECK_DISPONIBILITE", out -> {
+            out.writeInt(terrainId);
+            out.writeObject(date);
+            out.writeObject(heureDebut);
+            out.writeObject(heureFin);
+        });
+    }
+
     public boolean checkDisponibilite(int terrainId, LocalDate date,
                                       LocalTime heureDebut, LocalTime heureFin) {
-        try {
-            sendCommand("CHECK_DISPONIBILITE");
-            output.writeInt(terrainId);
-            output.writeObject(date);
-            output.writeObject(heureDebut);
-            output.writeObject(heureFin);
-            output.flush();
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur checkDisponibilite: " + e.getMessage());
-            return false;
-        }
+        return await(checkDisponibiliteAsync(terrainId, date, heureDebut, heureFin),
+                "checkDisponibilite", false);
+    }
+
+    /**
+     * Créneaux libres de tous les terrains d'un centre pour une date (une seule requête)
+     */
+    public CompletableFuture<DisponibiliteGrid> getDisponibilitesGridAsync(int centreId, int sportId,
+                                                                           LocalDate date) {
+        return send("GET_DISPONIBILITES_GRID", out -> {
+            out.writeInt(centreId);
+            out.writeInt(sportId);
+            out.writeObject(date);
+        });
+    }
+
+    public DisponibiliteGrid getDisponibilitesGrid(int centreId, int sportId, LocalDate date) {
+        return await(getDisponibilitesGridAsync(centreId, sportId, date), "getDisponibilitesGrid", null);
+    }
+
+    /**
+     * Vrai si le serveur peut pousser les mises à jour des disponibilités (protocole binaire)
+     */
+    public boolean supportsPush() {
+        return connected && isBinary();
+    }
+
+    /**
+     * Grille d'un centre, puis mises à jour poussées à chaque réservation ou
+     * annulation sur ses terrains (remplace l'abonnement précédent)
+     */
+    public CompletableFuture<DisponibiliteGrid> subscribeDisponibilitesAsync(int centreId, int sportId,
+                                                                             LocalDate date) {
+        return send("SUBSCRIBE_DISPONIBILITES", out -> {
+            out.writeInt(centreId);
+            out.writeInt(sportId);
+            out.writeObject(date);
+        });
+    }
+
+    public DisponibiliteGrid subscribeDisponibilites(int centreId, int sportId, LocalDate date) {
+        return await(subscribeDisponibilitesAsync(centreId, sportId, date), "subscribeDisponibilites", null);
+    }
+
+    public CompletableFuture<Void> unsubscribeDisponibilitesAsync() {
+        return send("UNSUBSCRIBE_DISPONIBILITES", null);
+    }
+
+    /**
+     * Écouteur des mises à jour poussées, appelé par le thread lecteur :
+     * il doit rendre la main rapidement (Platform.runLater côté interface)
+     */
+    public void setDisponibiliteListener(Consumer<DisponibiliteDelta> listener) {
+        this.disponibiliteListener = listener;
+    }
+
+    public CompletableFuture<Boolean> createReservationAsync(Reservation reservation) {
+        return this.<String>send("RESERVER", out -> out.writeObject(reservation))
+                .thenApply("Réservation confirmée"::equals);
     }
 
     public boolean createReservation(Reservation reservation) {
-        try {
-            sendCommand("RESERVER");
-            output.writeObject(reservation);
-            output.flush();
-            String response = readResponse();
-            return "Réservation confirmée".equals(response);
-        } catch (Exception e) {
-            System.err.println("Erreur createReservation: " + e.getMessage());
-            return false;
-        }
+        return await(createReservationAsync(reservation), "createReservation", false);
+    }
+
+    public CompletableFuture<List<Reservation>> getMesReservationsAsync() {
+        return send("GET_MES_RESERVATIONS", null);
     }
 
     public List<Reservation> getMesReservations() {
-        try {
-            sendCommand("GET_MES_RESERVATIONS");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getMesReservations: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getMesReservationsAsync(), "getMesReservations", new ArrayList<>());
+    }
+
+    public CompletableFuture<Boolean> annulerReservationAsync(int reservationId) {
+        return this.<String>send("ANNULER_RESERVATION", out -> out.writeInt(reservationId))
+                .thenApply("Réservation annulée"::equals);
     }
 
     public boolean annulerReservation(int reservationId) {
-        try {
-            sendCommand("ANNULER_RESERVATION");
-            output.writeInt(reservationId);
-            output.flush();
-            String response = readResponse();
-            return "Réservation annulée".equals(response);
-        } catch (Exception e) {
-            System.err.println("Erreur annulerReservation: " + e.getMessage());
-            return false;
-        }
+        return await(annulerReservationAsync(reservationId), "annulerReservation", false);
     }
 
     // ==================== ABONNEMENTS ====================
+    public CompletableFuture<List<Abonnement>> getAbonnementsAsync() {
+        return getCatalogue("abonnements", "GET_ABONNEMENTS", null);
+    }
+
     public List<Abonnement> getAbonnements() {
-        try {
-            sendCommand("GET_ABONNEMENTS");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getAbonnements: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getAbonnementsAsync(), "getAbonnements", new ArrayList<>());
+    }
+
+    public CompletableFuture<Boolean> souscrireAbonnementAsync(int abonnementId) {
+        return this.<String>send("SOUSCRIRE_ABONNEMENT", out -> out.writeInt(abonnementId))
+                .thenApply("Abonnement activé avec succès"::equals);
     }
 
     public boolean souscrireAbonnement(int abonnementId) {
-        try {
-            sendCommand("SOUSCRIRE_ABONNEMENT");
-            output.writeInt(abonnementId);
-            output.flush();
-            String response = readResponse();
-            return "Abonnement activé avec succès".equals(response);
-        } catch (Exception e) {
-            System.err.println("Erreur souscrireAbonnement: " + e.getMessage());
-            return false;
-        }
+        return await(souscrireAbonnementAsync(abonnementId), "souscrireAbonnement", false);
     }
 
     // ==================== ADMIN ====================
+    public CompletableFuture<List<Centre>> getAllCentresAsync() {
+        return send("ADMIN_GET_CENTRES", null);
+    }
+
     public List<Centre> getAllCentres() {
-        try {
-            sendCommand("ADMIN_GET_CENTRES");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getAllCentres: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getAllCentresAsync(), "getAllCentres", new ArrayList<>());
+    }
+
+    public CompletableFuture<List<Terrain>> getAllTerrainsAsync() {
+        return send("ADMIN_GET_TERRAINS", null);
     }
 
     public List<Terrain> getAllTerrains() {
-        try {
-            sendCommand("ADMIN_GET_TERRAINS");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getAllTerrains: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getAllTerrainsAsync(), "getAllTerrains", new ArrayList<>());
+    }
+
+    public CompletableFuture<List<Reservation>> getAllReservationsAsync() {
+        return send("ADMIN_GET_RESERVATIONS", null);
     }
 
     public List<Reservation> getAllReservations() {
-        try {
-            sendCommand("ADMIN_GET_RESERVATIONS");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getAllReservations: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return await(getAllReservationsAsync(), "getAllReservations", new ArrayList<>());
+    }
+
+    /**
+     * Page de réservations filtrées ; une page pleine indique qu'il peut en
+     * rester (page suivante : filter.apres(dernière réservation))
+     */
+    public CompletableFuture<List<Reservation>> getReservationsPageAsync(ReservationFilter filter) {
+        return send("ADMIN_GET_RESERVATIONS_PAGE", out -> out.writeObject(filter));
+    }
+
+    public List<Reservation> getReservationsPage(ReservationFilter filter) {
+        return await(getReservationsPageAsync(filter), "getReservationsPage", new ArrayList<>());
+    }
+
+    public CompletableFuture<Boolean> deleteCentreAsync(int centreId) {
+        return this.<Boolean>send("ADMIN_DELETE_CENTRE", out -> out.writeInt(centreId))
+                .thenApply(success -> {
+                    invalidateCatalogue("centres:");
+                    invalidateCatalogue("terrains:");
+                    return success;
+                });
     }
 
     public boolean deleteCentre(int centreId) {
-        try {
-            sendCommand("ADMIN_DELETE_CENTRE");
-            output.writeInt(centreId);
-            output.flush();
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur deleteCentre: " + e.getMessage());
-            return false;
+        return await(deleteCentreAsync(centreId), "deleteCentre", false);
+    }
+
+    public CompletableFuture<Boolean> bloquerTerrainAsync(int terrainId, String raison) {
+        return this.<Boolean>send("ADMIN_BLOQUER_TERRAIN", out -> {
+            out.writeInt(terrainId);
+            out.writeObject(raison);
+        }).thenApply(success -> {
+            invalidateCatalogue("terrains:");
+            return success;
+        });
+    }
+
+    private void invalidateCatalogue(String prefix) {
+        if (catalogue != null) {
+            catalogue.invalidate(prefix);
         }
     }
 
     public boolean bloquerTerrain(int terrainId, String raison) {
-        try {
-            sendCommand("ADMIN_BLOQUER_TERRAIN");
-            output.writeInt(terrainId);
-            output.writeObject(raison);
-            output.flush();
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur bloquerTerrain: " + e.getMessage());
-            return false;
-        }
+        return await(bloquerTerrainAsync(terrainId, raison), "bloquerTerrain", false);
+    }
+
+    public CompletableFuture<Object> getStatistiquesAsync() {
+        return send("ADMIN_STATS", null);
     }
 
     public Object getStatistiques() {
-        try {
-            sendCommand("ADMIN_STATS");
-            return readResponse();
-        } catch (Exception e) {
-            System.err.println("Erreur getStatistiques: " + e.getMessage());
-            return null;
-        }
+        return await(getStatistiquesAsync(), "getStatistiques", null);
     }
 }
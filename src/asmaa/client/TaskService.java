@@ -0,0 +1,224 @@
+package asmaa.client;
+
+import javafx.application.Platform;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Exécution des appels réseau des contrôleurs hors du thread JavaFX
+ *
+ * - pool borné (-Dasmaa.client.workers, 4 par défaut) au lieu d'un thread par appel ;
+ * - un changement de scène annule les chargements en cours (tâches avec un
+ *   canal), et leurs résultats ne sont plus appliqués à des vues qui ne sont
+ *   plus affichées ; les actions (connexion, suppression, annulation...) vont
+ *   à leur terme et leur résultat est toujours appliqué ;
+ * - un appel déjà asynchrone (CompletableFuture de NetworkClient) est suivi
+ *   sans occuper de thread du pool (submitAsync) ;
+ * - une requête identique (même clé) déjà en vol est partagée au lieu d'être relancée ;
+ * - sur un même canal (ex. la liste des centres), seul le dernier chargement
+ *   demandé est appliqué ;
+ * - la latence de chaque type de tâche est mesurée (soumission -> résultat).
+ */
+public class TaskService {
+
+    private static final int WORKERS = Integer.getInteger("asmaa.client.workers", 4);
+    private static final int QUEUE_CAPACITY = 128;
+    private static final long SLOW_TASK_MS = 1000;
+
+    private static TaskService instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+    // Chargements en vol (tâches avec un canal), seuls annulés au changement de scène
+    private final Map<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private final Map<String, Object> latestByChannel = new ConcurrentHashMap<>();
+    private final Map<String, LatencyStats> latencies = new ConcurrentHashMap<>();
+    private final AtomicInteger sceneGeneration = new AtomicInteger();
+
+    private TaskService() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, "client-task-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized TaskService getInstance() {
+        if (instance == null) {
+            instance = new TaskService();
+        }
+        return instance;
+    }
+
+    /**
+     * Lance une tâche liée à la scène courante
+     *
+     * @param channel   zone de l'interface alimentée (le dernier chargement l'emporte), ou null
+     * @param key       identité de la requête : deux tâches de même clé partagent le même appel
+     * @param work      appel bloquant exécuté dans le pool
+     * @param onSuccess appliqué sur le thread JavaFX si le résultat est toujours d'actualité
+     * @param onError   idem en cas d'échec (peut être null)
+     */
+    public <T> void submit(String channel, String key, Callable<T> work,
+                           Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        track(channel, key, created -> start(work, created), onSuccess, onError);
+    }
+
+    /**
+     * Comme submit(), pour un appel qui retourne déjà un futur : aucun
+     * thread du pool n'attend la réponse
+     */
+    public <T> void submitAsync(String channel, String key, Supplier<CompletableFuture<T>> work,
+                                Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        track(channel, key, created -> {
+            try {
+                work.get().whenComplete((result, error) -> {
+                    if (error != null) {
+                        created.completeExceptionally(error);
+                    } else {
+                        created.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+        }, onSuccess, onError);
+    }
+
+    private <T> void track(String channel, String key, Consumer<CompletableFuture<Object>> starter,
+                           Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        int generation = sceneGeneration.get();
+        Object token = new Object();
+        if (channel != null) {
+            latestByChannel.put(channel, token);
+        }
+
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inflight.putIfAbsent(key, created);
+        CompletableFuture<Object> future = existing != null ? existing : created;
+        if (existing == null) {
+            long submittedAt = System.nanoTime();
+            if (channel != null) {
+                loads.put(key, created);
+            }
+            created.whenComplete((r, e) -> {
+                inflight.remove(key, created);
+                loads.remove(key, created);
+                record(key, (System.nanoTime() - submittedAt) / 1_000_000);
+            });
+            starter.accept(created);
+        }
+
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            // Une action s'applique même si la scène a changé entre-temps
+            boolean current = channel == null
+                    || (generation == sceneGeneration.get() && latestByChannel.get(channel) == token);
+            if (!current) {
+                return;  // Résultat périmé : vue quittée ou chargement remplacé
+            }
+            if (error == null) {
+                @SuppressWarnings("unchecked")
+                T value = (T) result;
+                onSuccess.accept(value);
+            } else if (onError != null && !(error instanceof CancellationException)) {
+                onError.accept(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        }));
+    }
+
+    /**
+     * Tâche sans canal (action utilisateur) ; un double clic reste dédoublonné par la clé
+     */
+    public <T> void submit(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        submit(null, key, work, onSuccess, onError);
+    }
+
+    private void start(Callable<?> work, CompletableFuture<Object> future) {
+        try {
+            Future<?> running = executor.submit(() -> {
+                try {
+                    future.complete(work.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            // Annuler le futur interrompt l'appel en cours dans le pool
+            future.whenComplete((r, e) -> {
+                if (future.isCancelled()) {
+                    running.cancel(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new IllegalStateException("Trop de tâches en attente", e));
+        }
+    }
+
+    /**
+     * Appelé au changement de scène : les chargements de la scène quittée
+     * sont abandonnés, les actions continuent
+     */
+    public void cancelScene() {
+        sceneGeneration.incrementAndGet();
+        latestByChannel.clear();
+        for (CompletableFuture<Object> future : loads.values()) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Latences par type de tâche (préfixe de la clé avant ':')
+     */
+    public String getLatencyReport() {
+        StringBuilder report = new StringBuilder();
+        new TreeMap<>(latencies).forEach((name, stats) -> report.append(name).append(" : ")
+                .append(stats).append('\n'));
+        return report.toString();
+    }
+
+    public void shutdown() {
+        cancelScene();
+        for (CompletableFuture<Object> future : inflight.values()) {
+            future.cancel(true);
+        }
+        executor.shutdownNow();
+    }
+
+    private void record(String key, long elapsedMs) {
+        int separator = key.indexOf(':');
+        String name = separator > 0 ? key.substring(0, separator) : key;
+        latencies.computeIfAbsent(name, k -> new LatencyStats()).add(elapsedMs);
+
+        if (elapsedMs > SLOW_TASK_MS) {
+            System.err.println("[TaskService] Tâche lente: " + key + " (" + elapsedMs + " ms)");
+        }
+    }
+
+    /**
+     * Compteurs de latence d'un type de tâche
+     */
+    private static final class LatencyStats {
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        synchronized void add(long elapsedMs) {
+            count++;
+            totalMs += elapsedMs;
+            maxMs = Math.max(maxMs, elapsedMs);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return count + " appels, moyenne " + (count == 0 ? 0 : totalMs / count) + " ms, max " + maxMs + " ms";
+        }
+    }
+}
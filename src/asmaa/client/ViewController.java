@@ -0,0 +1,18 @@
+package asmaa.client;
+
+/**
+ * Contrôleur d'un écran que ClientMain garde en cache entre deux visites
+ *
+ * initialize() ne s'exécute qu'une fois, au chargement du FXML (parfois en
+ * arrière-plan, par préchargement) : il ne doit que câbler la vue. Tout ce
+ * qui dépend de la visite (session, sélection de l'écran précédent,
+ * chargements réseau) se fait dans onShow().
+ */
+public interface ViewController {
+
+    /** L'écran devient visible (thread JavaFX) */
+    void onShow();
+
+    /** L'écran est quitté (thread JavaFX) */
+    default void onHide() {}
+}
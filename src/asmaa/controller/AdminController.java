@@ -2,10 +2,10 @@ package asmaa.controller;
 
 import asmaa.client.ClientMain;
 import asmaa.client.NetworkClient;
+import asmaa.client.TaskService;
 import asmaa.model.*;
 
 import asmaa.utils.SessionManager;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -14,8 +14,6 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 
-import java.util.List;
-
 /**
  * CONTROLEUR ADMIN – VERSION COMPATIBLE MODELS ACTUELS
  */
@@ -43,6 +41,15 @@ public class AdminController {
     @FXML private TableColumn<Reservation, String> colResDate;
     @FXML private TableColumn<Reservation, String> colResStatut;
 
+    // ==================== FILTRES RESERVATIONS ====================
+
+    @FXML private DatePicker dpResDebut;
+    @FXML private DatePicker dpResFin;
+    @FXML private ComboBox<Centre> cmbResCentre;
+    @FXML private ComboBox<Reservation.Statut> cmbResStatut;
+    @FXML private TextField txtResUser;
+    @FXML private Label lblResInfo;
+
     // ==================== FORM CENTRE ====================
 
     @FXML private VBox formCentre;
@@ -62,12 +69,19 @@ public class AdminController {
 
     // ==================== DATA ====================
 
+    // Lignes chargées page par page ; au-delà de MAX_RESERVATION_ROWS la table
+    // est vidée pour afficher la fenêtre suivante au lieu de grandir
+    private static final int RESERVATION_PAGE_SIZE = 100;
+    private static final int MAX_RESERVATION_ROWS = 500;
+
     private NetworkClient networkClient;
+    private TaskService taskService;
     private SessionManager sessionManager;
 
     private final ObservableList<Centre> centres = FXCollections.observableArrayList();
     private final ObservableList<Terrain> terrains = FXCollections.observableArrayList();
     private final ObservableList<Reservation> reservations = FXCollections.observableArrayList();
+    private ReservationFilter nextReservationPage;
 
     // ==================== INITIALISATION ====================
 
@@ -75,6 +89,7 @@ public class AdminController {
     public void initialize() {
 
         networkClient = ClientMain.getNetworkClient();
+        taskService = TaskService.getInstance();
         sessionManager = SessionManager.getInstance();
 
         User user = sessionManager.getCurrentUser();
@@ -174,6 +189,14 @@ public class AdminController {
         });
 
         tableReservations.setItems(reservations);
+
+        // ----- FILTRES (champs facultatifs de la vue) -----
+        if (cmbResCentre != null) {
+            cmbResCentre.setItems(centres);
+        }
+        if (cmbResStatut != null) {
+            cmbResStatut.setItems(FXCollections.observableArrayList(Reservation.Statut.values()));
+        }
     }
 
     // ==================== LOAD DATA ====================
@@ -185,60 +208,90 @@ public class AdminController {
     }
 
     private void loadCentres() {
-        new Thread(() -> {
-            try {
-                List<Centre> list = networkClient.getAllCentres();
-                Platform.runLater(() -> {
+        taskService.submit("adminCentres", "adminCentres", networkClient::getAllCentres,
+                list -> {
                     if (list != null) {
                         centres.setAll(list);
                     } else {
                         centres.clear();
                     }
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    showError("Erreur", "Impossible de charger les centres: " + e.getMessage());
-                });
-            }
-        }).start();
+                },
+                e -> showError("Erreur", "Impossible de charger les centres: " + e.getMessage()));
     }
 
     private void loadTerrains() {
-        new Thread(() -> {
-            try {
-                List<Terrain> list = networkClient.getAllTerrains();
-                Platform.runLater(() -> {
+        taskService.submit("adminTerrains", "adminTerrains", networkClient::getAllTerrains,
+                list -> {
                     if (list != null) {
                         terrains.setAll(list);
                     } else {
                         terrains.clear();
                     }
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    showError("Erreur", "Impossible de charger les terrains: " + e.getMessage());
-                });
-            }
-        }).start();
+                },
+                e -> showError("Erreur", "Impossible de charger les terrains: " + e.getMessage()));
     }
 
     private void loadReservations() {
-        new Thread(() -> {
-            try {
-                List<Reservation> list = networkClient.getAllReservations();
-                Platform.runLater(() -> {
-                    if (list != null) {
-                        reservations.setAll(list);
-                    } else {
-                        reservations.clear();
+        reservations.clear();
+        nextReservationPage = null;
+        loadReservationPage(buildReservationFilter());
+    }
+
+    /**
+     * Charge une page et l'ajoute à la table dès réception, puis enchaîne sur
+     * la suivante tant que la fenêtre affichée n'est pas pleine. Un nouveau
+     * filtrage remplace la chaîne en cours (même canal).
+     */
+    private void loadReservationPage(ReservationFilter filter) {
+        taskService.submit("adminReservations", reservationPageKey(filter),
+                () -> networkClient.getReservationsPage(filter),
+                page -> {
+                    reservations.addAll(page);
+                    boolean pleine = page.size() == filter.getLimitBornee();
+                    ReservationFilter suivante = pleine ? filter.apres(page.get(page.size() - 1)) : null;
+
+                    if (suivante != null && reservations.size() < MAX_RESERVATION_ROWS) {
+                        loadReservationPage(suivante);
+                        return;
                     }
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    showError("Erreur", "Impossible de charger les réservations: " + e.getMessage());
-                });
+                    nextReservationPage = suivante;
+                    showReservationInfo(suivante != null
+                            ? reservations.size() + " réservations affichées, d'autres suivent"
+                            : reservations.size() + " réservation(s)");
+                },
+                e -> showError("Erreur", "Impossible de charger les réservations: " + e.getMessage()));
+    }
+
+    private ReservationFilter buildReservationFilter() {
+        ReservationFilter filter = new ReservationFilter();
+        filter.setLimit(RESERVATION_PAGE_SIZE);
+
+        if (dpResDebut != null) filter.setDateDebut(dpResDebut.getValue());
+        if (dpResFin != null) filter.setDateFin(dpResFin.getValue());
+        if (cmbResCentre != null && cmbResCentre.getValue() != null) {
+            filter.setCentreId(cmbResCentre.getValue().getId());
+        }
+        if (cmbResStatut != null) filter.setStatut(cmbResStatut.getValue());
+        if (txtResUser != null && !txtResUser.getText().trim().isEmpty()) {
+            try {
+                filter.setUserId(Integer.parseInt(txtResUser.getText().trim()));
+            } catch (NumberFormatException e) {
+                showWarning("Filtre", "L'identifiant utilisateur doit être un nombre");
             }
-        }).start();
+        }
+        return filter;
+    }
+
+    private static String reservationPageKey(ReservationFilter f) {
+        return "adminReservations:" + f.getDateDebut() + ":" + f.getDateFin() + ":" + f.getCentreId()
+                + ":" + f.getUserId() + ":" + f.getStatut() + ":" + f.getApresDate()
+                + ":" + f.getApresHeure() + ":" + f.getApresId();
+    }
+
+    private void showReservationInfo(String message) {
+        if (lblResInfo != null) {
+            lblResInfo.setText(message);
+        }
     }
 
     // ==================== ACTIONS ====================
@@ -251,17 +304,16 @@ public class AdminController {
             return;
         }
 
-        new Thread(() -> {
-            boolean ok = networkClient.deleteCentre(c.getId());
-            Platform.runLater(() -> {
-                if (ok) {
-                    showSuccess("Centre supprimé");
-                    loadCentres();
-                } else {
-                    showError("Erreur", "Suppression échouée");
-                }
-            });
-        }).start();
+        taskService.submit("deleteCentre:" + c.getId(), () -> networkClient.deleteCentre(c.getId()),
+                ok -> {
+                    if (ok) {
+                        showSuccess("Centre supprimé");
+                        loadCentres();
+                    } else {
+                        showError("Erreur", "Suppression échouée");
+                    }
+                },
+                e -> showError("Erreur", "Suppression échouée: " + e.getMessage()));
     }
 
     @FXML
@@ -278,17 +330,16 @@ public class AdminController {
         dialog.setContentText("Raison :");
 
         dialog.showAndWait().ifPresent(raison -> {
-            new Thread(() -> {
-                boolean ok = networkClient.bloquerTerrain(t.getId(), raison);
-                Platform.runLater(() -> {
-                    if (ok) {
-                        showSuccess("Terrain bloqué");
-                        loadTerrains();
-                    } else {
-                        showError("Erreur", "Blocage échoué");
-                    }
-                });
-            }).start();
+            taskService.submit("bloquerTerrain:" + t.getId(), () -> networkClient.bloquerTerrain(t.getId(), raison),
+                    ok -> {
+                        if (ok) {
+                            showSuccess("Terrain bloqué");
+                            loadTerrains();
+                        } else {
+                            showError("Erreur", "Blocage échoué");
+                        }
+                    },
+                    e -> showError("Erreur", "Blocage échoué: " + e.getMessage()));
         });
     }
 
@@ -300,17 +351,46 @@ public class AdminController {
             return;
         }
 
-        new Thread(() -> {
-            boolean ok = networkClient.annulerReservation(r.getId());
-            Platform.runLater(() -> {
-                if (ok) {
-                    showSuccess("Réservation annulée");
-                    loadReservations();
-                } else {
-                    showError("Erreur", "Annulation échouée");
-                }
-            });
-        }).start();
+        taskService.submit("annulerReservation:" + r.getId(), () -> networkClient.annulerReservation(r.getId()),
+                ok -> {
+                    if (ok) {
+                        showSuccess("Réservation annulée");
+                        loadReservations();
+                    } else {
+                        showError("Erreur", "Annulation échouée");
+                    }
+                },
+                e -> showError("Erreur", "Annulation échouée: " + e.getMessage()));
+    }
+
+    @FXML
+    private void handleFiltrerReservations() {
+        loadReservations();
+    }
+
+    @FXML
+    private void handleReinitialiserFiltres() {
+        if (dpResDebut != null) dpResDebut.setValue(null);
+        if (dpResFin != null) dpResFin.setValue(null);
+        if (cmbResCentre != null) cmbResCentre.setValue(null);
+        if (cmbResStatut != null) cmbResStatut.setValue(null);
+        if (txtResUser != null) txtResUser.clear();
+        loadReservations();
+    }
+
+    /**
+     * Fenêtre suivante de l'historique (remplace les lignes affichées)
+     */
+    @FXML
+    private void handleReservationsSuivantes() {
+        if (nextReservationPage == null) {
+            showReservationInfo("Fin de l'historique");
+            return;
+        }
+        ReservationFilter suivante = nextReservationPage;
+        reservations.clear();
+        nextReservationPage = null;
+        loadReservationPage(suivante);
     }
 
     @FXML
@@ -2,6 +2,7 @@ package asmaa.controller;
 
 import asmaa.client.ClientMain;
 import asmaa.client.NetworkClient;
+import asmaa.client.TaskService;
 import asmaa.model.Centre;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
@@ -28,6 +29,7 @@ public class CentresController {
     private static String selectedVilleNom;
 
     private NetworkClient networkClient;
+    private TaskService taskService;
     private ObservableList<Centre> centres;
 
     public static void setSelectedVille(int villeId, String villeNom) {
@@ -38,6 +40,7 @@ public class CentresController {
     @FXML
     public void initialize() {
         networkClient = ClientMain.getNetworkClient();
+        taskService = TaskService.getInstance();
         centres = FXCollections.observableArrayList();
 
         // Afficher la ville sélectionnée
@@ -76,18 +79,17 @@ public class CentresController {
      * Charge les centres de la ville
      */
     private void loadCentres() {
-        new Thread(() -> {
-            List<Centre> centresList = networkClient.getCentres(selectedVilleId);
-
-            javafx.application.Platform.runLater(() -> {
-                if (centresList != null && !centresList.isEmpty()) {
-                    centres.addAll(centresList);
-                    lblInfo.setText("✅ " + centresList.size() + " centre(s) trouvé(s)");
-                } else {
-                    lblInfo.setText("⚠️ Aucun centre disponible dans cette ville");
-                }
-            });
-        }).start();
+        taskService.submitAsync("centres", "centres:" + selectedVilleId,
+                () -> networkClient.getCentresAsync(selectedVilleId),
+                centresList -> {
+                    if (centresList != null && !centresList.isEmpty()) {
+                        centres.addAll(centresList);
+                        lblInfo.setText("✅ " + centresList.size() + " centre(s) trouvé(s)");
+                    } else {
+                        lblInfo.setText("⚠️ Aucun centre disponible dans cette ville");
+                    }
+                },
+                e -> lblInfo.setText("⚠️ Aucun centre disponible dans cette ville"));
     }
 
     @FXML
@@ -1,6 +1,8 @@
 package asmaa.controller;
 
 import asmaa.client.ClientMain;
+import asmaa.client.ImageService;
+import asmaa.client.ViewController;
 import asmaa.utils.SessionManager;
 import asmaa.model.User;
 import javafx.fxml.FXML;
@@ -12,7 +14,7 @@ import javafx.util.Duration;
 /**
  * Contrôleur HOME avec toute la logique de navigation et scroll
  */
-public class HomeController {
+public class HomeController implements ViewController {
 
     // Boutons header
     @FXML private Button btnLogin;
@@ -31,12 +33,18 @@ public class HomeController {
     public void initialize() {
         sessionManager = SessionManager.getInstance();
 
-        // Mettre à jour l'UI selon l'état de connexion
-        updateUIForUserState();
+        // Fond décodé en arrière-plan à la taille de la section
+        ImageService.getInstance().loadBackground(sectionHero, "hero-bg.jpg", 1920, 600);
 
         System.out.println("✅ HomeController initialisé avec scroll activé");
     }
 
+    @Override
+    public void onShow() {
+        // Mettre à jour l'UI selon l'état de connexion
+        updateUIForUserState();
+    }
+
     /**
      * Met à jour l'interface selon l'état de connexion
      */
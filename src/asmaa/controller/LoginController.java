@@ -3,6 +3,8 @@ package asmaa.controller;
 
 import asmaa.client.ClientMain;
 import asmaa.client.NetworkClient;
+import asmaa.client.TaskService;
+import asmaa.client.ViewController;
 import asmaa.model.User;
 import asmaa.utils.SessionManager;
 import asmaa.utils.ValidationUtil;
@@ -16,7 +18,7 @@ import javafx.scene.control.CheckBox;
 /**
  * Contrôleur pour la page de connexion
  */
-public class LoginController {
+public class LoginController implements ViewController {
 
     @FXML private TextField txtUsername;
     @FXML private PasswordField txtPassword;
@@ -26,16 +28,27 @@ public class LoginController {
     @FXML private CheckBox chkRememberMe;
 
     private NetworkClient networkClient;
+    private TaskService taskService;
 
     @FXML
     public void initialize() {
         networkClient = ClientMain.getNetworkClient();
+        taskService = TaskService.getInstance();
         lblError.setVisible(false);
 
         // Enter key pour se connecter
         txtPassword.setOnAction(e -> handleLogin());
     }
 
+    @Override
+    public void onShow() {
+        // Vue réutilisée : repartir d'un formulaire vierge
+        txtPassword.clear();
+        lblError.setVisible(false);
+        btnLogin.setDisable(false);
+        btnLogin.setText("Se connecter");
+    }
+
     /**
      * Gère la connexion
      */
@@ -57,12 +70,9 @@ public class LoginController {
         btnLogin.setDisable(true);
         btnLogin.setText("Connexion...");
 
-        // Connexion dans un thread séparé
-        new Thread(() -> {
-            try {
-                User user = networkClient.login(username, password);
-
-                javafx.application.Platform.runLater(() -> {
+        // Connexion hors du thread JavaFX
+        taskService.submit("login:" + username, () -> networkClient.login(username, password),
+                user -> {
                     if (user != null) {
                         // Connexion réussie
                         SessionManager.getInstance().login(user);
@@ -76,16 +86,12 @@ public class LoginController {
                         btnLogin.setDisable(false);
                         btnLogin.setText("Se connecter");
                     }
-                });
-
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> {
+                },
+                e -> {
                     showError("Erreur de connexion: " + e.getMessage());
                     btnLogin.setDisable(false);
                     btnLogin.setText("Se connecter");
                 });
-            }
-        }).start();
     }
 
     /**
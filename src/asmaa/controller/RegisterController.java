@@ -3,6 +3,8 @@ package asmaa.controller;
 
 import asmaa.client.ClientMain;
 import asmaa.client.NetworkClient;
+import asmaa.client.TaskService;
+import asmaa.client.ViewController;
 import asmaa.model.User;
 import asmaa.utils.ValidationUtil;
 import javafx.fxml.FXML;
@@ -11,7 +13,7 @@ import javafx.scene.control.*;
 /**
  * Contrôleur pour la page d'inscription
  */
-public class RegisterController {
+public class RegisterController implements ViewController {
 
     @FXML private TextField txtUsername;
     @FXML private TextField txtEmail;
@@ -26,14 +28,26 @@ public class RegisterController {
     @FXML private Label lblSuccess;
 
     private NetworkClient networkClient;
+    private TaskService taskService;
 
     @FXML
     public void initialize() {
         networkClient = ClientMain.getNetworkClient();
+        taskService = TaskService.getInstance();
         lblError.setVisible(false);
         lblSuccess.setVisible(false);
     }
 
+    @Override
+    public void onShow() {
+        // Vue réutilisée : repartir d'un formulaire vierge
+        clearFields();
+        lblError.setVisible(false);
+        lblSuccess.setVisible(false);
+        btnRegister.setDisable(false);
+        btnRegister.setText("S'inscrire");
+    }
+
     /**
      * Gère l'inscription
      */
@@ -91,12 +105,9 @@ public class RegisterController {
         btnRegister.setDisable(true);
         btnRegister.setText("Inscription...");
 
-        // Inscription dans un thread séparé
-        new Thread(() -> {
-            try {
-                boolean success = networkClient.register(newUser);
-
-                javafx.application.Platform.runLater(() -> {
+        // Inscription hors du thread JavaFX
+        taskService.submit("register:" + username, () -> networkClient.register(newUser),
+                success -> {
                     if (success) {
                         showSuccess("Inscription réussie ! Vous pouvez maintenant vous connecter.");
                         clearFields();
@@ -106,16 +117,12 @@ public class RegisterController {
 
                     btnRegister.setDisable(false);
                     btnRegister.setText("S'inscrire");
-                });
-
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> {
+                },
+                e -> {
                     showError("Erreur lors de l'inscription: " + e.getMessage());
                     btnRegister.setDisable(false);
                     btnRegister.setText("S'inscrire");
                 });
-            }
-        }).start();
     }
 
     /**
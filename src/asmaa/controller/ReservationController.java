@@ -2,8 +2,11 @@ package asmaa.controller;
 
 import asmaa.client.ClientMain;
 import asmaa.client.NetworkClient;
+import asmaa.client.TaskService;
+import asmaa.client.ViewController;
 import asmaa.model.*;
 import asmaa.utils.SessionManager;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
@@ -14,7 +17,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 
-public class ReservationController {
+public class ReservationController implements ViewController {
 
     // ==================== UI ====================
     @FXML private ComboBox<Ville> cmbVille;
@@ -41,6 +44,7 @@ public class ReservationController {
 
     // ==================== DATA ====================
     private NetworkClient networkClient;
+    private TaskService taskService;
     private SessionManager sessionManager;
 
     private ObservableList<Ville> villes = FXCollections.observableArrayList();
@@ -51,6 +55,15 @@ public class ReservationController {
     private Terrain selectedTerrain;
     private boolean disponible = false;
 
+    // Grille des créneaux libres du centre : une requête pour toutes les vérifications
+    // Abonnée (protocole binaire), elle est tenue à jour par le serveur et n'expire pas
+    private static final long GRID_TTL_MS = 30_000;
+    private DisponibiliteGrid grille;
+    private int grilleCentreId;
+    private int grilleSportId;
+    private long grilleChargeeA;
+    private boolean grilleAbonnee;
+
     // Pour passer le terrain depuis SportsController
     private static Terrain selectedTerrainStatic;
     public static void setSelectedTerrain(Terrain terrain) {
@@ -61,6 +74,7 @@ public class ReservationController {
     @FXML
     public void initialize() {
         networkClient = ClientMain.getNetworkClient();
+        taskService = TaskService.getInstance();
         sessionManager = SessionManager.getInstance();
 
         cmbVille.setItems(villes);
@@ -70,14 +84,6 @@ public class ReservationController {
 
         setupHeures();
         setupDatePicker();
-        updateInviteForm();
-
-        if (selectedTerrainStatic != null) {
-            selectedTerrain = selectedTerrainStatic;
-            terrains.add(selectedTerrain);
-            listTerrains.getSelectionModel().select(selectedTerrain);
-            updateTerrainInfo();
-        }
 
         cmbVille.setOnAction(e -> loadCentres());
         cmbCentre.setOnAction(e -> loadTerrains());
@@ -88,26 +94,58 @@ public class ReservationController {
 
         cmbHeureDebut.setOnAction(e -> resetDisponibilite());
         cmbHeureFin.setOnAction(e -> resetDisponibilite());
+    }
 
-        loadVilles();
-        loadSports();
+    @Override
+    public void onShow() {
+        // Vue réutilisée : formulaire vierge, puis terrain choisi sur l'écran précédent
+        cmbVille.setValue(null);
+        cmbCentre.setValue(null);
+        cmbSport.setValue(null);
+        centres.clear();
+        terrains.clear();
+        datePicker.setValue(null);
+        cmbHeureDebut.setValue(null);
+        cmbHeureFin.setValue(null);
+        grille = null;
+        updateInviteForm();
+
+        selectedTerrain = selectedTerrainStatic;
+        if (selectedTerrain != null) {
+            terrains.add(selectedTerrain);
+            listTerrains.getSelectionModel().select(selectedTerrain);
+            updateTerrainInfo();
+        }
+        resetDisponibilite();
+
+        if (villes.isEmpty()) {
+            loadVilles();
+        }
+        if (sports.isEmpty()) {
+            loadSports();
+        }
+    }
+
+    /**
+     * Écran quitté : arrêter les mises à jour de la grille
+     */
+    @Override
+    public void onHide() {
+        if (grilleAbonnee) {
+            networkClient.setDisponibiliteListener(null);
+            networkClient.unsubscribeDisponibilitesAsync();
+            grilleAbonnee = false;
+        }
     }
 
     // ==================== LOADERS ====================
+    // Requêtes en parallèle sur la même connexion (NetworkClient pipeliné)
     private void loadVilles() {
-        new Thread(() -> {
-            // Utiliser NetworkClient au lieu de DatabaseManager directement
-            List<Ville> list = networkClient.getVilles();
-            javafx.application.Platform.runLater(() -> villes.addAll(list));
-        }).start();
+        taskService.submitAsync("villes", "villes", networkClient::getVillesAsync, villes::addAll, this::logLoadError);
     }
 
     private void loadSports() {
-        new Thread(() -> {
-            // Utiliser NetworkClient au lieu de DatabaseManager directement
-            List<Sport> list = networkClient.getSports();
-            javafx.application.Platform.runLater(() -> sports.addAll(list));
-        }).start();
+        taskService.submitAsync("sports", "sports", networkClient::getSportsAsync, sports::addAll, this::logLoadError);
     }
 
     private void loadCentres() {
@@ -119,27 +157,30 @@ public class ReservationController {
         cmbCentre.setValue(null);
         cmbSport.setValue(null);
 
-        new Thread(() -> {
-            List<Centre> list = networkClient.getCentres(ville.getId());
-            javafx.application.Platform.runLater(() -> centres.addAll(list));
-        }).start();
+        taskService.submitAsync("centres", "centres:" + ville.getId(),
+                () -> networkClient.getCentresAsync(ville.getId()),
+                centres::addAll, this::logLoadError);
     }
 
     private void loadTerrains() {
         if (cmbCentre.getValue() == null || cmbSport.getValue() == null) return;
 
         terrains.clear();
-        new Thread(() -> {
-            List<Terrain> list = networkClient.getTerrains(
-                    cmbSport.getValue().getId(),
-                    cmbCentre.getValue().getId()
-            );
-            javafx.application.Platform.runLater(() -> {
-                if (list != null) {
-                    terrains.addAll(list);
-                }
-            });
-        }).start();
+        int sportId = cmbSport.getValue().getId();
+        int centreId = cmbCentre.getValue().getId();
+        // Un changement de sélection remplace le chargement précédent
+        taskService.submitAsync("terrains", "terrains:" + sportId + ":" + centreId,
+                () -> networkClient.getTerrainsAsync(sportId, centreId),
+                list -> {
+                    if (list != null) {
+                        terrains.addAll(list);
+                    }
+                },
+                this::logLoadError);
+    }
+
+    private void logLoadError(Throwable error) {
+        System.err.println("Erreur de chargement: " + error.getMessage());
     }
 
     // ==================== ACTIONS ====================
@@ -153,12 +194,20 @@ public class ReservationController {
         }
 
         try {
-            disponible = networkClient.checkDisponibilite(
-                    selectedTerrain.getId(),
-                    datePicker.getValue(),
-                    LocalTime.parse(cmbHeureDebut.getValue()),
-                    LocalTime.parse(cmbHeureFin.getValue())
-            );
+            LocalTime heureDebut = LocalTime.parse(cmbHeureDebut.getValue());
+            LocalTime heureFin = LocalTime.parse(cmbHeureFin.getValue());
+
+            DisponibiliteGrid grid = getGrille(selectedTerrain, datePicker.getValue());
+            if (grid != null && grid.hasTerrain(selectedTerrain.getId())) {
+                disponible = grid.isFree(selectedTerrain.getId(), heureDebut, heureFin);
+            } else {
+                disponible = networkClient.checkDisponibilite(
+                        selectedTerrain.getId(),
+                        datePicker.getValue(),
+                        heureDebut,
+                        heureFin
+                );
+            }
 
             if (disponible) {
                 showSuccess("Terrain disponible ✅");
@@ -207,6 +256,7 @@ public class ReservationController {
                 showSuccess("Réservation confirmée 🎉");
                 ClientMain.changeScene("home.fxml");
             } else {
+                grille = null;  // Le créneau a pu être pris entre-temps
                 showError("Erreur lors de la réservation");
             }
         } catch (Exception e) {
@@ -215,6 +265,57 @@ public class ReservationController {
     }
 
     // ==================== UTILS ====================
+    /**
+     * Grille du centre/sport du terrain pour la date, rechargée si elle a expiré
+     * ou si elle porte sur un autre centre, sport ou jour
+     */
+    private DisponibiliteGrid getGrille(Terrain terrain, LocalDate date) {
+        boolean valide = grille != null
+                && grille.getDate().equals(date)
+                && grilleCentreId == terrain.getCentreId()
+                && grilleSportId == terrain.getSportId()
+                && (grilleAbonnee || System.currentTimeMillis() - grilleChargeeA < GRID_TTL_MS);
+
+        if (!valide) {
+            grilleAbonnee = false;
+            if (networkClient.supportsPush()) {
+                // S'abonner remplace l'abonnement à la grille précédente
+                networkClient.setDisponibiliteListener(
+                        delta -> Platform.runLater(() -> onDisponibiliteUpdate(delta)));
+                grille = networkClient.subscribeDisponibilites(terrain.getCentreId(), terrain.getSportId(), date);
+                grilleAbonnee = grille != null;
+            }
+            if (!grilleAbonnee) {
+                grille = networkClient.getDisponibilitesGrid(terrain.getCentreId(), terrain.getSportId(), date);
+            }
+            grilleCentreId = terrain.getCentreId();
+            grilleSportId = terrain.getSportId();
+            grilleChargeeA = System.currentTimeMillis();
+        }
+        return grille;
+    }
+
+    /**
+     * Mise à jour poussée par le serveur : si le créneau vérifié vient d'être
+     * pris, le bouton Réserver est désactivé avant que l'utilisateur n'essaie
+     */
+    private void onDisponibiliteUpdate(DisponibiliteDelta delta) {
+        if (!grilleAbonnee || grille == null || !grille.apply(delta)) {
+            return;
+        }
+
+        if (disponible && selectedTerrain != null
+                && selectedTerrain.getId() == delta.getTerrainId()
+                && delta.getDate().equals(datePicker.getValue())
+                && cmbHeureDebut.getValue() != null && cmbHeureFin.getValue() != null
+                && !grille.isFree(delta.getTerrainId(),
+                        LocalTime.parse(cmbHeureDebut.getValue()), LocalTime.parse(cmbHeureFin.getValue()))) {
+            resetDisponibilite();
+            showError("Ce créneau vient d'être réservé ❌");
+        }
+    }
+
+
     private void setupHeures() {
         for (int h=7; h<=23; h++) {
             String v = String.format("%02d:00", h);
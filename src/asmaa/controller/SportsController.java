@@ -2,6 +2,8 @@ package asmaa.controller;
 
 import asmaa.client.ClientMain;
 import asmaa.client.NetworkClient;
+import asmaa.client.TaskService;
+import asmaa.client.ViewController;
 import asmaa.model.*;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -13,7 +15,7 @@ import java.util.List;
 /**
  * Contrôleur pour la sélection de ville/centre et terrains
  */
-public class SportsController {
+public class SportsController implements ViewController {
 
     @FXML private Label lblSportNom;
     @FXML private ComboBox<Ville> cmbVille;
@@ -26,6 +28,7 @@ public class SportsController {
     private static String selectedSportNom;
 
     private NetworkClient networkClient;
+    private TaskService taskService;
     private ObservableList<Ville> villes;
     private ObservableList<Centre> centres;
     private ObservableList<Terrain> terrains;
@@ -38,13 +41,7 @@ public class SportsController {
     @FXML
     public void initialize() {
         networkClient = ClientMain.getNetworkClient();
-
-        // Afficher le sport sélectionné (avec vérification null)
-        if (selectedSportNom != null && !selectedSportNom.isEmpty()) {
-            lblSportNom.setText("Réserver un terrain de " + selectedSportNom);
-        } else {
-            lblSportNom.setText("Sélectionnez un sport");
-        }
+        taskService = TaskService.getInstance();
 
         // Initialiser les listes
         villes = FXCollections.observableArrayList();
@@ -62,42 +59,43 @@ public class SportsController {
         listTerrains.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldVal, newVal) -> btnContinuer.setDisable(newVal == null)
         );
+    }
 
-        // Charger les villes
-        loadVilles();
+    @Override
+    public void onShow() {
+        // Afficher le sport sélectionné (avec vérification null)
+        if (selectedSportNom != null && !selectedSportNom.isEmpty()) {
+            lblSportNom.setText("Réserver un terrain de " + selectedSportNom);
+        } else {
+            lblSportNom.setText("Sélectionnez un sport");
+        }
+
+        // Le sport a pu changer : repartir du choix de la ville
+        cmbVille.setValue(null);
+        centres.clear();
+        terrains.clear();
+        lblInfo.setText("");
+
+        // Charger les villes (une fois : la liste ne dépend pas du sport)
+        if (villes.isEmpty()) {
+            loadVilles();
+        }
     }
 
-    /** Charge les villes disponibles */
+    /**
+     * Charge les villes disponibles (copie locale du catalogue si le serveur
+     * n'est pas encore joignable)
+     */
     private void loadVilles() {
-        // CORRECTION: Utiliser NetworkClient au lieu de données hardcodées
-        new Thread(() -> {
-            try {
-                List<Ville> villesList = networkClient.getVilles();
-                javafx.application.Platform.runLater(() -> {
+        taskService.submitAsync("villes", "villes", networkClient::getVillesAsync,
+                villesList -> {
                     if (villesList != null && !villesList.isEmpty()) {
                         villes.setAll(villesList);
                     } else {
-                        // Fallback si la base de données n'est pas disponible
-                        villes.addAll(
-                                new Ville() {{ setId(1); setNom("Casablanca"); }},
-                                new Ville() {{ setId(2); setNom("Rabat"); }},
-                                new Ville() {{ setId(3); setNom("Marrakech"); }},
-                                new Ville() {{ setId(4); setNom("Tanger"); }}
-                        );
+                        showInfo("Villes indisponibles : serveur injoignable");
                     }
-                });
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> {
-                    // Fallback en cas d'erreur
-                    villes.addAll(
-                            new Ville() {{ setId(1); setNom("Casablanca"); }},
-                            new Ville() {{ setId(2); setNom("Rabat"); }},
-                            new Ville() {{ setId(3); setNom("Marrakech"); }},
-                            new Ville() {{ setId(4); setNom("Tanger"); }}
-                    );
-                });
-            }
-        }).start();
+                },
+                e -> showInfo("Villes indisponibles : serveur injoignable"));
     }
 
     /** Gère la sélection d'une ville */
@@ -108,17 +106,18 @@ public class SportsController {
         centres.clear();
         terrains.clear();
 
-        new Thread(() -> {
-            List<Centre> centresList = networkClient.getCentres(ville.getId());
-            javafx.application.Platform.runLater(() -> {
-                if (centresList != null && !centresList.isEmpty()) {
-                    centres.addAll(centresList);
-                    lblInfo.setText("");
-                } else {
-                    showInfo("Aucun centre disponible dans cette ville");
-                }
-            });
-        }).start();
+        // Seule la dernière ville choisie alimente la liste
+        taskService.submitAsync("centres", "centres:" + ville.getId(),
+                () -> networkClient.getCentresAsync(ville.getId()),
+                centresList -> {
+                    if (centresList != null && !centresList.isEmpty()) {
+                        centres.addAll(centresList);
+                        lblInfo.setText("");
+                    } else {
+                        showInfo("Aucun centre disponible dans cette ville");
+                    }
+                },
+                e -> showInfo("Aucun centre disponible dans cette ville"));
     }
 
     /** Gère la sélection d'un centre */
@@ -134,20 +133,18 @@ public class SportsController {
 
         terrains.clear();
 
-        new Thread(() -> {
-            List<Terrain> terrainsList = networkClient.getTerrains(
-                    selectedSportId,
-                    centre.getId()
-            );
-            javafx.application.Platform.runLater(() -> {
-                if (terrainsList != null && !terrainsList.isEmpty()) {
-                    terrains.addAll(terrainsList);
-                    lblInfo.setText("");
-                } else {
-                    showInfo("Aucun terrain disponible");
-                }
-            });
-        }).start();
+        int sportId = selectedSportId;
+        taskService.submitAsync("terrains", "terrains:" + sportId + ":" + centre.getId(),
+                () -> networkClient.getTerrainsAsync(sportId, centre.getId()),
+                terrainsList -> {
+                    if (terrainsList != null && !terrainsList.isEmpty()) {
+                        terrains.addAll(terrainsList);
+                        lblInfo.setText("");
+                    } else {
+                        showInfo("Aucun terrain disponible");
+                    }
+                },
+                e -> showInfo("Aucun terrain disponible"));
     }
 
     /** Continue vers la réservation */
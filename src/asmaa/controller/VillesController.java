@@ -1,18 +1,24 @@
 package asmaa.controller;
 
 import asmaa.client.ClientMain;
+import asmaa.client.ViewController;
 import javafx.fxml.FXML;
 
 /**
  * Contrôleur pour la page des villes
  */
-public class VillesController {
+public class VillesController implements ViewController {
 
     @FXML
     public void initialize() {
         System.out.println("✅ VillesController initialisé");
     }
 
+    @Override
+    public void onShow() {
+        // Page statique : rien à recharger
+    }
+
     @FXML
     private void handleBack() {
         System.out.println("← Retour à l'accueil");
@@ -0,0 +1,35 @@
+// CatalogueEntry.java
+package asmaa.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Liste du catalogue (villes, sports, centres...) accompagnée de sa version
+ * Réponse de GET_CATALOGUE : data vaut null quand la version connue du
+ * client est toujours la bonne (liste inchangée, rien à renvoyer).
+ */
+public class CatalogueEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long version;
+    private List<?> data;
+
+    public CatalogueEntry() {}
+
+    public CatalogueEntry(long version, List<?> data) {
+        this.version = version;
+        this.data = data;
+    }
+
+    public boolean isNotModified() {
+        return data == null;
+    }
+
+    // Getters et Setters
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public List<?> getData() { return data; }
+    public void setData(List<?> data) { this.data = data; }
+}
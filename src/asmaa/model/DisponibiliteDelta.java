@@ -0,0 +1,35 @@
+// DisponibiliteDelta.java
+package asmaa.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Nouveau masque de créneaux libres d'un terrain, poussé par le serveur
+ * aux clients abonnés à la grille de son centre (même codage que DisponibiliteGrid)
+ */
+public class DisponibiliteDelta implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int terrainId;
+    private LocalDate date;
+    private int freeMask;
+
+    public DisponibiliteDelta() {}
+
+    public DisponibiliteDelta(int terrainId, LocalDate date, int freeMask) {
+        this.terrainId = terrainId;
+        this.date = date;
+        this.freeMask = freeMask;
+    }
+
+    // Getters et Setters
+    public int getTerrainId() { return terrainId; }
+    public void setTerrainId(int terrainId) { this.terrainId = terrainId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public int getFreeMask() { return freeMask; }
+    public void setFreeMask(int freeMask) { this.freeMask = freeMask; }
+}
@@ -0,0 +1,98 @@
+// DisponibiliteGrid.java
+package asmaa.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Créneaux horaires libres de tous les terrains d'un centre pour un sport et une date
+ * Un masque de bits par terrain : le bit i est à 1 si le créneau
+ * [FIRST_HOUR + i, FIRST_HOUR + i + 1[ est libre.
+ */
+public class DisponibiliteGrid implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Plage horaire proposée à la réservation (07:00 - 23:00) */
+    public static final int FIRST_HOUR = 7;
+    public static final int LAST_HOUR = 23;
+    public static final int SLOT_COUNT = LAST_HOUR - FIRST_HOUR;
+
+    private LocalDate date;
+    private int[] terrainIds;
+    private int[] freeMasks;
+
+    public DisponibiliteGrid() {}
+
+    public DisponibiliteGrid(LocalDate date, int[] terrainIds, int[] freeMasks) {
+        this.date = date;
+        this.terrainIds = terrainIds;
+        this.freeMasks = freeMasks;
+    }
+
+    /**
+     * Vrai si le terrain est libre sur toute la plage [heureDebut, heureFin[
+     * (heures pleines entre FIRST_HOUR et LAST_HOUR)
+     */
+    public boolean isFree(int terrainId, LocalTime heureDebut, LocalTime heureFin) {
+        int first = heureDebut.getHour() - FIRST_HOUR;
+        int last = heureFin.getHour() - FIRST_HOUR;
+        if (heureDebut.getMinute() != 0 || heureFin.getMinute() != 0
+                || first < 0 || last > SLOT_COUNT || first >= last) {
+            return false;
+        }
+
+        int wanted = ((1 << (last - first)) - 1) << first;
+        return (getFreeMask(terrainId) & wanted) == wanted;
+    }
+
+    /**
+     * Vrai si le terrain figure dans la grille
+     */
+    public boolean hasTerrain(int terrainId) {
+        for (int id : terrainIds) {
+            if (id == terrainId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Masque des créneaux libres d'un terrain (0 si le terrain n'est pas dans la grille)
+     */
+    public int getFreeMask(int terrainId) {
+        for (int i = 0; i < terrainIds.length; i++) {
+            if (terrainIds[i] == terrainId) {
+                return freeMasks[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Applique une mise à jour poussée par le serveur ; faux si elle ne concerne pas cette grille
+     */
+    public boolean apply(DisponibiliteDelta delta) {
+        if (date == null || !date.equals(delta.getDate())) {
+            return false;
+        }
+        for (int i = 0; i < terrainIds.length; i++) {
+            if (terrainIds[i] == delta.getTerrainId()) {
+                freeMasks[i] = delta.getFreeMask();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Getters et Setters
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public int[] getTerrainIds() { return terrainIds; }
+    public void setTerrainIds(int[] terrainIds) { this.terrainIds = terrainIds; }
+
+    public int[] getFreeMasks() { return freeMasks; }
+    public void setFreeMasks(int[] freeMasks) { this.freeMasks = freeMasks; }
+}
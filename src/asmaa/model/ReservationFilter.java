@@ -0,0 +1,91 @@
+// ReservationFilter.java
+package asmaa.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Critères et curseur d'une page de réservations (administration)
+ * Les réservations sont triées par date, heure de début puis id décroissants ;
+ * le curseur est la dernière ligne de la page précédente (pagination par clé).
+ * Un critère à null (ou 0 pour les identifiants) ne filtre pas.
+ */
+public class ReservationFilter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+    private int centreId;
+    private int userId;
+    private Reservation.Statut statut;
+
+    private LocalDate apresDate;
+    private LocalTime apresHeure;
+    private int apresId;
+    private int limit = DEFAULT_LIMIT;
+
+    public ReservationFilter() {}
+
+    /**
+     * Mêmes critères, positionnés après la réservation donnée
+     */
+    public ReservationFilter apres(Reservation derniere) {
+        ReservationFilter suivante = new ReservationFilter();
+        suivante.dateDebut = dateDebut;
+        suivante.dateFin = dateFin;
+        suivante.centreId = centreId;
+        suivante.userId = userId;
+        suivante.statut = statut;
+        suivante.limit = limit;
+        suivante.apresDate = derniere.getDateReservation();
+        suivante.apresHeure = derniere.getHeureDebut();
+        suivante.apresId = derniere.getId();
+        return suivante;
+    }
+
+    /**
+     * Vrai pour une page suivante (curseur positionné)
+     */
+    public boolean hasCurseur() {
+        return apresDate != null && apresHeure != null;
+    }
+
+    /**
+     * Taille de page ramenée entre 1 et MAX_LIMIT
+     */
+    public int getLimitBornee() {
+        return limit < 1 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+
+    // Getters et Setters
+    public LocalDate getDateDebut() { return dateDebut; }
+    public void setDateDebut(LocalDate dateDebut) { this.dateDebut = dateDebut; }
+
+    public LocalDate getDateFin() { return dateFin; }
+    public void setDateFin(LocalDate dateFin) { this.dateFin = dateFin; }
+
+    public int getCentreId() { return centreId; }
+    public void setCentreId(int centreId) { this.centreId = centreId; }
+
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public Reservation.Statut getStatut() { return statut; }
+    public void setStatut(Reservation.Statut statut) { this.statut = statut; }
+
+    public LocalDate getApresDate() { return apresDate; }
+    public void setApresDate(LocalDate apresDate) { this.apresDate = apresDate; }
+
+    public LocalTime getApresHeure() { return apresHeure; }
+    public void setApresHeure(LocalTime apresHeure) { this.apresHeure = apresHeure; }
+
+    public int getApresId() { return apresId; }
+    public void setApresId(int apresId) { this.apresId = apresId; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
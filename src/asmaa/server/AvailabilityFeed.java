@@ -0,0 +1,174 @@
+package asmaa.server;
+
+import asmaa.model.DisponibiliteDelta;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Abonnements aux disponibilités : les sessions qui affichent la grille d'un
+ * centre pour une date reçoivent le nouveau masque d'un terrain dès qu'une
+ * réservation y est créée ou annulée
+ *
+ * changed() est appelé sur le chemin des réservations : sans abonné pour la
+ * journée du terrain il ne coûte qu'une lecture de map. Sinon la journée est
+ * mise en file (une seule fois tant qu'elle n'est pas traitée) et le thread
+ * "availability-feed" relit son masque au moment de l'envoi : des
+ * changements rapprochés ne produisent qu'un envoi, toujours à jour, et un
+ * masque inchangé n'est pas renvoyé.
+ *
+ * Une session a au plus un abonnement ; s'abonner remplace le précédent. Un
+ * abonné dont l'envoi échoue (connexion fermée ou trop en retard) est retiré.
+ */
+public class AvailabilityFeed {
+
+    /**
+     * Destinataire des mises à jour (une session)
+     */
+    public interface Subscriber {
+        /** Faux si la mise à jour n'a pas pu partir : l'abonnement est alors retiré */
+        boolean push(DisponibiliteDelta delta);
+    }
+
+    /**
+     * Masque courant d'une journée de terrain (négatif si illisible)
+     */
+    interface MaskSource {
+        int freeMask(int terrainId, LocalDate date);
+    }
+
+    private final MaskSource source;
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+    private final Map<Subscriber, long[]> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong pushed = new AtomicLong();
+    private final Thread dispatcher;
+
+    AvailabilityFeed(MaskSource source) {
+        this.source = source;
+        this.dispatcher = new Thread(this::dispatchLoop, "availability-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Abonne une session aux terrains d'une grille (remplace son abonnement précédent)
+     */
+    public void subscribe(Subscriber subscriber, LocalDate date, int[] terrainIds) {
+        unsubscribe(subscriber);
+
+        long[] keys = new long[terrainIds.length];
+        for (int i = 0; i < terrainIds.length; i++) {
+            int terrainId = terrainIds[i];
+            keys[i] = AvailabilityIndex.key(terrainId, date);
+            topics.compute(keys[i], (key, topic) -> {
+                if (topic == null) {
+                    topic = new Topic(terrainId, date);
+                }
+                topic.subscribers.add(subscriber);
+                return topic;
+            });
+        }
+        subscriptions.put(subscriber, keys);
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        long[] keys = subscriptions.remove(subscriber);
+        if (keys == null) {
+            return;
+        }
+        for (long key : keys) {
+            topics.computeIfPresent(key, (k, topic) -> {
+                topic.subscribers.remove(subscriber);
+                return topic.subscribers.isEmpty() ? null : topic;
+            });
+        }
+    }
+
+    /**
+     * La disponibilité d'une journée de terrain a peut-être changé
+     */
+    public void changed(int terrainId, LocalDate date) {
+        long key = AvailabilityIndex.key(terrainId, date);
+        if (topics.containsKey(key) && pending.add(key)) {
+            queue.add(key);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getPushed() {
+        return pushed.get();
+    }
+
+    public void shutdown() {
+        dispatcher.interrupt();
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            long key;
+            try {
+                key = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Retirée avant la lecture : un changement pendant l'envoi sera renvoyé
+            pending.remove(key);
+
+            try {
+                dispatch(key);
+            } catch (RuntimeException e) {
+                ServerLog.warn("AvailabilityFeed", "Erreur lors de l'envoi des disponibilités",
+                        "erreur", e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch(long key) {
+        Topic topic = topics.get(key);
+        if (topic == null) {
+            return;
+        }
+
+        int mask = source.freeMask(topic.terrainId, topic.date);
+        if (mask < 0 || mask == topic.lastMask) {
+            return;
+        }
+        topic.lastMask = mask;
+
+        DisponibiliteDelta delta = new DisponibiliteDelta(topic.terrainId, topic.date, mask);
+        for (Subscriber subscriber : topic.subscribers) {
+            if (subscriber.push(delta)) {
+                pushed.incrementAndGet();
+            } else {
+                unsubscribe(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Abonnés d'une journée de terrain et dernier masque envoyé
+     * (lastMask n'est lu et écrit que par le thread d'envoi)
+     */
+    private static final class Topic {
+        private final int terrainId;
+        private final LocalDate date;
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        private int lastMask = -1;
+
+        Topic(int terrainId, LocalDate date) {
+            this.terrainId = terrainId;
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package asmaa.server;
+
+import asmaa.model.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Index mémoire des créneaux occupés, par terrain et par date
+ *
+ * Chaque journée chargée est un instantané immuable (tableaux triés par heure
+ * de début) remplacé en entier à chaque modification : les lectures ne
+ * prennent aucun verrou. Le chargement depuis la base et les écritures sont
+ * orchestrés par ReservationManager, sous le verrou du terrain.
+ */
+public class AvailabilityIndex {
+
+    private final Map<Long, DaySlots> days = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> keysByReservation = new ConcurrentHashMap<>();
+
+    /**
+     * Clé d'une journée de terrain
+     */
+    static long key(int terrainId, LocalDate date) {
+        return ((long) terrainId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    static int terrainOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static LocalDate dateOf(long key) {
+        return LocalDate.ofEpochDay((int) key);
+    }
+
+    /**
+     * Journée chargée, ou null si elle doit d'abord être lue en base
+     */
+    public DaySlots get(int terrainId, LocalDate date) {
+        DaySlots slots = days.get(key(terrainId, date));
+        if (slots != null) {
+            slots.lastAccess = System.currentTimeMillis();
+        }
+        return slots;
+    }
+
+    /**
+     * Remplace une journée par les réservations actives lues en base
+     */
+    public DaySlots load(int terrainId, LocalDate date, List<Reservation> reservations) {
+        long key = key(terrainId, date);
+        DaySlots previous = days.get(key);
+        if (previous != null) {
+            for (int id : previous.ids) {
+                keysByReservation.remove(id, key);
+            }
+        }
+
+        DaySlots slots = DaySlots.of(reservations);
+        for (Reservation reservation : reservations) {
+            keysByReservation.put(reservation.getId(), key);
+        }
+        days.put(key, slots);
+        return slots;
+    }
+
+    /**
+     * Comme load(), mais seulement si la condition est vraie au moment du
+     * remplacement ; un add() concurrent sur la même journée attend ce test
+     */
+    public boolean loadIf(int terrainId, LocalDate date, List<Reservation> reservations,
+                          BooleanSupplier condition) {
+        long key = key(terrainId, date);
+        DaySlots loaded = DaySlots.of(reservations);
+        boolean[] replaced = new boolean[1];
+        DaySlots[] previous = new DaySlots[1];
+
+        days.compute(key, (k, current) -> {
+            if (!condition.getAsBoolean()) {
+                return current;
+            }
+            replaced[0] = true;
+            previous[0] = current;
+            return loaded;
+        });
+        if (!replaced[0]) {
+            return false;
+        }
+
+        // Nouvelles clés d'abord : une réservation toujours présente reste trouvable
+        for (Reservation reservation : reservations) {
+            keysByReservation.put(reservation.getId(), key);
+        }
+        if (previous[0] != null) {
+            for (int id : previous[0].ids) {
+                if (!loaded.contains(id)) {
+                    keysByReservation.remove(id, key);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ajoute une réservation créée, si sa journée est déjà chargée
+     */
+    public void add(Reservation reservation) {
+        long key = key(reservation.getTerrainId(), reservation.getDateReservation());
+        if (days.computeIfPresent(key, (k, slots) -> slots.with(reservation)) != null) {
+            keysByReservation.put(reservation.getId(), key);
+        }
+    }
+
+    /**
+     * Retire une réservation annulée
+     */
+    public void remove(int reservationId) {
+        Long key = keysByReservation.remove(reservationId);
+        if (key != null) {
+            days.computeIfPresent(key, (k, slots) -> slots.without(reservationId));
+        }
+    }
+
+    /**
+     * Heures touchées par une réservation indexée (0 si inconnue)
+     */
+    public int hourMaskOf(int reservationId) {
+        Long key = keysByReservation.get(reservationId);
+        DaySlots slots = key != null ? days.get(key) : null;
+        return slots != null ? slots.hourMaskOf(reservationId) : 0;
+    }
+
+    /**
+     * Heures occupées d'une journée chargée (0 si elle ne l'est pas)
+     */
+    public int hourMask(long key) {
+        DaySlots slots = days.get(key);
+        return slots != null ? slots.hourMask() : 0;
+    }
+
+    /**
+     * Clé de la journée contenant une réservation (null si non indexée)
+     */
+    public Long keyOf(int reservationId) {
+        return keysByReservation.get(reservationId);
+    }
+
+    /**
+     * Oublie une journée (elle sera relue en base au prochain accès)
+     */
+    public void evict(long key) {
+        DaySlots slots = days.remove(key);
+        if (slots != null) {
+            for (int id : slots.ids) {
+                keysByReservation.remove(id, key);
+            }
+        }
+    }
+
+    /**
+     * Clés des journées chargées et date de leur dernier accès
+     */
+    public Map<Long, Long> loadedDays() {
+        Map<Long, Long> result = new HashMap<>();
+        days.forEach((key, slots) -> result.put(key, slots.lastAccess));
+        return result;
+    }
+
+    public int size() {
+        return days.size();
+    }
+
+    /**
+     * Réservations d'une journée, triées par heure de début
+     * maxEnd[i] est la plus grande heure de fin parmi les créneaux 0..i, ce qui
+     * permet de détecter un chevauchement par recherche dichotomique même si la
+     * base contient des créneaux qui se recouvrent.
+     */
+    public static final class DaySlots {
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] ids;
+        private final int[] maxEnd;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private DaySlots(int[] starts, int[] ends, int[] ids) {
+            this.starts = starts;
+            this.ends = ends;
+            this.ids = ids;
+            this.maxEnd = new int[ends.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnd[i] = max;
+            }
+        }
+
+        /**
+         * Journée construite à partir d'une liste de réservations
+         */
+        public static DaySlots of(List<Reservation> reservations) {
+            DaySlots slots = new DaySlots(new int[0], new int[0], new int[0]);
+            for (Reservation reservation : reservations) {
+                slots = slots.with(reservation);
+            }
+            return slots;
+        }
+
+        /**
+         * Vrai si [heureDebut, heureFin[ ne chevauche aucun créneau occupé
+         */
+        public boolean isFree(LocalTime heureDebut, LocalTime heureFin) {
+            int start = heureDebut.toSecondOfDay();
+            int end = heureFin.toSecondOfDay();
+
+            // Créneaux commençant avant la fin demandée : 0..i-1
+            int i = Arrays.binarySearch(starts, end);
+            if (i < 0) {
+                i = -i - 1;
+            } else {
+                while (i > 0 && starts[i - 1] == end) {
+                    i--;
+                }
+            }
+            return i == 0 || maxEnd[i - 1] <= start;
+        }
+
+        public int count() {
+            return ids.length;
+        }
+
+        /**
+         * Heures touchées par au moins un créneau occupé (bit i : [i h, i+1 h[)
+         */
+        public int hourMask() {
+            int mask = 0;
+            for (int i = 0; i < ids.length; i++) {
+                mask |= slotHourMask(i);
+            }
+            return mask;
+        }
+
+        boolean contains(int reservationId) {
+            for (int id : ids) {
+                if (id == reservationId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int hourMaskOf(int reservationId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == reservationId) {
+                    return slotHourMask(i);
+                }
+            }
+            return 0;
+        }
+
+        private int slotHourMask(int i) {
+            // Une fin à 00:00 désigne minuit en fin de journée
+            int end = ends[i] == 0 ? 24 * 3600 : ends[i];
+            return SlotClaims.hourMask(starts[i], end);
+        }
+
+        DaySlots with(Reservation reservation) {
+            int start = reservation.getHeureDebut().toSecondOfDay();
+            int n = ids.length;
+            int at = 0;
+            while (at < n && starts[at] <= start) {
+                at++;
+            }
+
+            int[] newStarts = new int[n + 1];
+            int[] newEnds = new int[n + 1];
+            int[] newIds = new int[n + 1];
+            System.arraycopy(starts, 0, newStarts, 0, at);
+            System.arraycopy(ends, 0, newEnds, 0, at);
+            System.arraycopy(ids, 0, newIds, 0, at);
+            newStarts[at] = start;
+            newEnds[at] = reservation.getHeureFin().toSecondOfDay();
+            newIds[at] = reservation.getId();
+            System.arraycopy(starts, at, newStarts, at + 1, n - at);
+            System.arraycopy(ends, at, newEnds, at + 1, n - at);
+            System.arraycopy(ids, at, newIds, at + 1, n - at);
+            return new DaySlots(newStarts, newEnds, newIds);
+        }
+
+        DaySlots without(int reservationId) {
+            int at = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == reservationId) {
+                    at = i;
+                    break;
+                }
+            }
+            if (at < 0) {
+                return this;
+            }
+
+            int n = ids.length - 1;
+            int[] newStarts = new int[n];
+            int[] newEnds = new int[n];
+            int[] newIds = new int[n];
+            System.arraycopy(starts, 0, newStarts, 0, at);
+            System.arraycopy(ends, 0, newEnds, 0, at);
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(starts, at + 1, newStarts, at, n - at);
+            System.arraycopy(ends, at + 1, newEnds, at, n - at);
+            System.arraycopy(ids, at + 1, newIds, at, n - at);
+            return new DaySlots(newStarts, newEnds, newIds);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package asmaa.server;
+
+import asmaa.model.*;
+import asmaa.utils.BinaryCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des données de référence (sports, villes, centres, terrains, abonnements)
+ * placé devant DatabaseManager
+ *
+ * Les listes servies sont des instantanés immuables partagés par toutes les
+ * sessions. Une entrée expire après -Dasmaa.cache.ttlSec secondes (300 par
+ * défaut) ou dès qu'une commande d'administration modifie le catalogue.
+ * -Dasmaa.cache.warm=true précharge les listes globales au démarrage.
+ *
+ * Chaque liste a une version, empreinte de son contenu encodé : elle ne
+ * change que si les données changent (pas à chaque rechargement ni au
+ * redémarrage du serveur). Un client qui présente la version de sa copie
+ * (GET_CATALOGUE) n'a ainsi rien à retélécharger tant qu'elle est à jour.
+ */
+public class CatalogueCache {
+
+    private static final long TTL_MS = Long.getLong("asmaa.cache.ttlSec", 300L) * 1000;
+    public static final boolean WARM_ON_STARTUP = Boolean.getBoolean("asmaa.cache.warm");
+
+    private static final Map<String, Snapshot<?>> entries = new ConcurrentHashMap<>();
+    private static final AtomicLong generation = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    public static List<Sport> getSports() {
+        return get("sports", DatabaseManager::getAllSports).data();
+    }
+
+    public static List<Ville> getVilles() {
+        return get("villes", DatabaseManager::getAllVilles).data();
+    }
+
+    public static List<Centre> getCentresByVille(int villeId) {
+        return get("centres:" + villeId, () -> DatabaseManager.getCentresByVille(villeId)).data();
+    }
+
+    public static List<Terrain> getTerrains(int sportId, int centreId) {
+        return get("terrains:" + sportId + ":" + centreId,
+                () -> DatabaseManager.getTerrainsBySportAndCentre(sportId, centreId)).data();
+    }
+
+    public static List<Abonnement> getAbonnements() {
+        return get("abonnements", DatabaseManager::getAllAbonnements).data();
+    }
+
+    /**
+     * Liste et version d'une clé du catalogue ("villes", "centres:<ville>",
+     * "terrains:<sport>:<centre>"...), null si la clé n'en désigne aucune
+     * (seule la forme canonique, celle des clés du cache, est acceptée)
+     */
+    public static CatalogueEntry getEntry(String key) {
+        String[] parts = key.split(":", -1);
+        try {
+            switch (parts[0]) {
+                case "sports":
+                    return parts.length == 1 ? get(key, DatabaseManager::getAllSports).entry() : null;
+                case "villes":
+                    return parts.length == 1 ? get(key, DatabaseManager::getAllVilles).entry() : null;
+                case "abonnements":
+                    return parts.length == 1 ? get(key, DatabaseManager::getAllAbonnements).entry() : null;
+                case "centres": {
+                    int villeId = Integer.parseInt(parts[1]);
+                    return key.equals("centres:" + villeId)
+                            ? get(key, () -> DatabaseManager.getCentresByVille(villeId)).entry()
+                            : null;
+                }
+                case "terrains": {
+                    int sportId = Integer.parseInt(parts[1]);
+                    int centreId = Integer.parseInt(parts[2]);
+                    return key.equals("terrains:" + sportId + ":" + centreId)
+                            ? get(key, () -> DatabaseManager.getTerrainsBySportAndCentre(sportId, centreId)).entry()
+                            : null;
+                }
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Un centre a été supprimé : ses listes de centres et de terrains sont périmées
+     */
+    public static void invalidateCentres() {
+        invalidate("centres:");
+        invalidate("terrains:");
+    }
+
+    /**
+     * Un terrain a été bloqué ou modifié
+     */
+    public static void invalidateTerrains() {
+        invalidate("terrains:");
+    }
+
+    public static void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Précharge les listes qui ne dépendent d'aucun paramètre
+     */
+    public static void warm() {
+        getSports();
+        getVilles();
+        getAbonnements();
+        ServerLog.info("CatalogueCache", "Cache du catalogue préchargé (" + entries.size() + " listes)");
+    }
+
+    /**
+     * Encodage d'une réponse, produit à la demande
+     */
+    @FunctionalInterface
+    public interface Encoding {
+        byte[] encode() throws IOException;
+    }
+
+    /**
+     * Octets d'une réponse construite à partir de source (la liste ou
+     * l'entrée versionnée d'une clé), encodés une fois par format et gardés
+     * sur l'instantané : ils disparaissent avec lui (expiration,
+     * invalidation). Si source n'est pas l'instantané courant de la clé
+     * (liste vide non gardée, instantané remplacé), rien n'est conservé.
+     */
+    public static byte[] encoded(String key, Object source, String format, Encoding encoding) throws IOException {
+        Snapshot<?> snapshot = entries.get(key);
+        if (snapshot == null || (snapshot.data != source && snapshot.entry != source)) {
+            return encoding.encode();
+        }
+        byte[] bytes = snapshot.encoded.get(format);
+        if (bytes == null) {
+            bytes = encoding.encode();
+            snapshot.encoded.putIfAbsent(format, bytes);
+        }
+        return bytes;
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Snapshot<T> get(String key, Supplier<List<T>> loader) {
+        Snapshot<T> snapshot = (Snapshot<T>) entries.get(key);
+        if (snapshot != null && snapshot.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+
+        misses.incrementAndGet();
+        long loadedGeneration = generation.get();
+        List<T> data = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        Snapshot<T> loaded = new Snapshot<>(data, versionOf(data), System.currentTimeMillis() + TTL_MS);
+
+        // Une liste vide peut venir d'une erreur SQL : ne pas la garder en cache.
+        // Une invalidation survenue pendant le chargement rend la liste suspecte.
+        if (!data.isEmpty() && generation.get() == loadedGeneration) {
+            entries.put(key, loaded);
+            if (generation.get() != loadedGeneration) {
+                entries.remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Empreinte SHA-256 (64 premiers bits) de la liste encodée en binaire ;
+     * jamais 0, valeur réservée au client qui n'a pas encore de copie
+     */
+    private static long versionOf(List<?> data) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(buffer);
+            encoder.writeObject(data);
+            encoder.flush();
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(buffer.toByteArray());
+            long version = ByteBuffer.wrap(digest).getLong();
+            return version != 0 ? version : 1;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Version du catalogue incalculable", e);
+        }
+    }
+
+    private static void invalidate(String prefix) {
+        generation.incrementAndGet();
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Liste immuable, sa version, sa date d'expiration et ses réponses
+     * déjà encodées (une par format de protocole)
+     */
+    private static final class Snapshot<T> {
+        private final List<T> data;
+        private final CatalogueEntry entry;
+        private final long expiresAt;
+        private final Map<String, byte[]> encoded = new ConcurrentHashMap<>();
+
+        Snapshot(List<T> data, long version, long expiresAt) {
+            this.data = data;
+            this.entry = new CatalogueEntry(version, data);
+            this.expiresAt = expiresAt;
+        }
+
+        List<T> data() {
+            return data;
+        }
+
+        CatalogueEntry entry() {
+            return entry;
+        }
+    }
+}
@@ -1,23 +1,64 @@
 package asmaa.server;
 
 import asmaa.model.*;
+import asmaa.utils.BinaryCodec;
+import asmaa.utils.FrameUtil;
+import asmaa.utils.Opcode;
 import java.io.*;
 import java.net.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Gère la communication avec un client spécifique
- * Chaque instance s'exécute dans son propre thread
+ * Chaque instance s'exécute dans son propre thread, ou reçoit ses trames
+ * du frontal NIO via handleFrame()
+ *
+ * En protocole binaire, une session abonnée aux disponibilités d'une grille
+ * reçoit aussi des trames poussées (DISPONIBILITE_UPDATE, requestId 0),
+ * écrites entre deux réponses par le thread de l'AvailabilityFeed.
  */
-public class ClientHandler implements Runnable {
+public class ClientHandler implements Runnable, AvailabilityFeed.Subscriber {
+
+    /**
+     * Envoi d'une trame hors réponse (faux si la connexion ne peut plus la recevoir)
+     */
+    interface FrameSink {
+        boolean send(byte[] payload) throws IOException;
+    }
+
+    // Trames poussées en attente par session bloquante (comme le frontal NIO)
+    private static final int MAX_PUSH_BACKLOG = 64;
+    // Threads virtuels si la JVM en a : pas de thread système de plus par session abonnée
+    private static final ThreadFactory PUSH_THREADS = pushThreadFactory();
+
+    private static final AtomicLong nextSessionId = new AtomicLong();
+
+    private final long sessionId = nextSessionId.incrementAndGet();
+
     private Socket clientSocket;
-    private ObjectInputStream input;
-    private ObjectOutputStream output;
+    private InputStream prefetchedInput;
+    private ObjectInput input;
+    private ObjectOutput output;
+    private int binaryVersion;
+    private boolean framed;
+    private byte[] preEncodedResponse;
     private ReservationManager reservationManager;
+    private Semaphore dbPermits;
     private User currentUser;
     private boolean connected;
+    private boolean errorResponse;
+    private String currentCommand;
+    private volatile FrameSink pushSink;
+    private PushWriter pushWriter;
+    private final AtomicBoolean sessionCounted = new AtomicBoolean();
 
     public ClientHandler(Socket socket, ReservationManager manager) {
         this.clientSocket = socket;
@@ -25,40 +66,247 @@ public class ClientHandler implements Runnable {
         this.connected = true;
     }
 
+    /**
+     * Handler dont le traitement des commandes (donc les appels JDBC) est borné
+     * par un nombre de permis partagé entre toutes les sessions
+     */
+    public ClientHandler(Socket socket, ReservationManager manager, Semaphore dbPermits) {
+        this(socket, manager);
+        this.dbPermits = dbPermits;
+    }
+
+    /**
+     * Handler pour une connexion dont les premiers octets ont déjà été lus
+     * (connexion ancien protocole rendue par le frontal NIO)
+     */
+    ClientHandler(Socket socket, InputStream prefetchedInput, ReservationManager manager) {
+        this(socket, manager);
+        this.prefetchedInput = prefetchedInput;
+    }
+
     @Override
     public void run() {
+        openSession();
         try {
-            // Initialiser les flux I/O
-            output = new ObjectOutputStream(clientSocket.getOutputStream());
-            output.flush();
-            input = new ObjectInputStream(clientSocket.getInputStream());
-
-            log("Client connecté: " + clientSocket.getInetAddress());
-
-            // Boucle de traitement des requêtes
-            while (connected) {
-                try {
-                    String command = (String) input.readObject();
-                    handleCommand(command);
-                } catch (EOFException e) {
-                    log("Client déconnecté");
-                    break;
-                } catch (ClassNotFoundException e) {
-                    log("Erreur de protocole: " + e.getMessage());
+            InputStream rawInput = prefetchedInput != null
+                    ? prefetchedInput
+                    : clientSocket.getInputStream();
+            BufferedInputStream in = new BufferedInputStream(rawInput);
+
+            // Lire l'en-tête du client pour choisir le protocole
+            in.mark(4);
+            int magic = new DataInputStream(in).readInt();
+
+            log("Client connecté", "adresse", clientSocket.getInetAddress().getHostAddress());
+
+            if (magic == FrameUtil.MAGIC_FRAMED) {
+                runFramed(new DataInputStream(in));
+            } else if (magic == FrameUtil.MAGIC_BINARY) {
+                DataInputStream din = new DataInputStream(in);
+                int accepted = negotiateBinary(din.readInt());
+                DataOutputStream dout = new DataOutputStream(clientSocket.getOutputStream());
+                dout.writeInt(accepted);
+                dout.flush();
+                if (accepted > 0) {
+                    runFramed(din);
                 }
+            } else {
+                in.reset();
+                runLegacy(in);
             }
 
+        } catch (EOFException e) {
+            log("Client déconnecté");
         } catch (IOException e) {
-            log("Erreur I/O: " + e.getMessage());
+            warn("Erreur I/O", "erreur", e.getMessage());
         } finally {
             disconnect();
         }
     }
 
     /**
-     * Traite les commandes envoyées par le client
+     * Ancien protocole : un flux ObjectInputStream/ObjectOutputStream continu
+     */
+    private void runLegacy(InputStream in) throws IOException {
+        // Initialiser les flux I/O
+        // Tamponné : statut et données partent ensemble au flush() de sendResponse
+        output = new ObjectOutputStream(new BufferedOutputStream(
+                ServerMetrics.countingOutput(clientSocket.getOutputStream())));
+        output.flush();
+        input = new ObjectInputStream(ServerMetrics.countingInput(in));
+
+        // Boucle de traitement des requêtes
+        while (connected) {
+            try {
+                String command = (String) input.readObject();
+                handleCommand(command);
+            } catch (EOFException e) {
+                log("Client déconnecté");
+                break;
+            } catch (ClassNotFoundException e) {
+                warn("Erreur de protocole", "erreur", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Protocole tramé en mode bloquant : une trame requête, une trame réponse
+     */
+    private void runFramed(DataInputStream in) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(clientSocket.getOutputStream()));
+        if (binaryVersion > 0) {
+            // Trames poussées écrites par un thread de la session, jamais par celui de l'AvailabilityFeed
+            pushWriter = new PushWriter(out, "push-writer-" + sessionId);
+            setPushSink(pushWriter);
+        }
+
+        while (connected) {
+            byte[] response = handleFrame(FrameUtil.readFrame(in));
+            if (response != null) {
+                synchronized (out) {
+                    FrameUtil.writeFrame(out, response);
+                }
+            }
+        }
+    }
+
+    /**
+     * Destination des trames poussées (fournie par le frontal qui possède la connexion)
+     */
+    void setPushSink(FrameSink sink) {
+        this.pushSink = sink;
+    }
+
+    /**
+     * Choisit la version du protocole binaire (0 si aucune n'est commune)
+     */
+    int negotiateBinary(int requestedVersion) {
+        openSession();
+        binaryVersion = Math.min(requestedVersion, BinaryCodec.PROTOCOL_VERSION);
+        if (binaryVersion < 1) {
+            binaryVersion = 0;
+            connected = false;
+        }
+        return binaryVersion;
+    }
+
+    /**
+     * Traite une trame complète et retourne la trame réponse
+     * (null si le client s'est déconnecté)
+     */
+    byte[] handleFrame(byte[] payload) throws IOException {
+        openSession();
+        ServerMetrics.addBytesIn(4 + payload.length);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        framed = true;
+        preEncodedResponse = null;
+
+        // En-tête illisible : l'exception remonte et la connexion est fermée
+        byte code = 0;
+        int requestId = 0;
+        String command;
+        if (binaryVersion > 0) {
+            // [opcode][requestId] : la réponse reprend le même en-tête
+            BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(payload);
+            code = decoder.readByte();
+            requestId = decoder.readInt();
+            input = decoder;
+            Opcode opcode = Opcode.fromCode(code);
+            command = opcode != null ? opcode.name() : "opcode " + code;
+        } else {
+            input = new ObjectInputStream(new ByteArrayInputStream(payload));
+            command = null;
+        }
+        output = newResponseOutput(buffer, code, requestId);
+
+        try {
+            if (command == null) {
+                command = (String) input.readObject();
+            }
+            handleCommand(command);
+        } catch (ClassNotFoundException | IOException | RuntimeException e) {
+            // Arguments mal formés (la trame entière est en mémoire : toute
+            // erreur de lecture vient de son contenu) : réponse ERROR, la session continue
+            warn("Requête invalide", "erreur", e.toString());
+            buffer.reset();
+            preEncodedResponse = null;
+            output = newResponseOutput(buffer, code, requestId);
+            sendResponse("ERROR", "Requête invalide");
+        }
+
+        if (!connected) {
+            return null;
+        }
+
+        output.flush();
+
+        byte[] response;
+        if (preEncodedResponse != null && binaryVersion == 0) {
+            response = preEncodedResponse;  // Trame de sérialisation complète
+        } else {
+            if (preEncodedResponse != null) {
+                buffer.write(preEncodedResponse);  // Après l'en-tête [opcode][requestId]
+            }
+            response = buffer.toByteArray();
+        }
+        ServerMetrics.addBytesOut(4 + response.length);
+        return response;
+    }
+
+    /**
+     * Flux de la trame réponse : en-tête [opcode][requestId] en binaire,
+     * nouveau flux de sérialisation sinon
+     */
+    private ObjectOutput newResponseOutput(ByteArrayOutputStream buffer, byte code, int requestId)
+            throws IOException {
+        if (binaryVersion > 0) {
+            BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(buffer);
+            encoder.writeByte(code);
+            encoder.writeInt(requestId);
+            return encoder;
+        }
+        return new ObjectOutputStream(buffer);
+    }
+
+    /**
+     * Traite une commande et mesure sa durée (attente du permis comprise)
      */
     private void handleCommand(String command) throws IOException, ClassNotFoundException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        errorResponse = false;
+        currentCommand = command;
+        try {
+            handleCommandWithPermit(command);
+            failed = false;
+        } finally {
+            ServerMetrics.recordCommand(command, System.nanoTime() - start, failed || errorResponse);
+            currentCommand = null;
+        }
+    }
+
+    /**
+     * Traite une commande, en attendant un permis d'accès à la base si besoin
+     */
+    private void handleCommandWithPermit(String command) throws IOException, ClassNotFoundException {
+        if (dbPermits == null || "DISCONNECT".equals(command)) {
+            dispatchCommand(command);
+            return;
+        }
+
+        dbPermits.acquireUninterruptibly();
+        try {
+            dispatchCommand(command);
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    /**
+     * Traite les commandes envoyées par le client
+     */
+    private void dispatchCommand(String command) throws IOException, ClassNotFoundException {
         switch (command) {
             case "LOGIN":
                 handleLogin();
@@ -78,9 +326,25 @@ public class ClientHandler implements Runnable {
             case "GET_VILLES":
                 handleGetVilles();
                 break;
+            case "GET_CATALOGUE":
+                handleGetCatalogue();
+                break;
             case "CHECK_DISPONIBILITE":
                 handleCheckDisponibilite();
                 break;
+            case "GET_DISPONIBILITES_GRID":
+                handleGetDisponibilitesGrid();
+                break;
+            case "SUBSCRIBE_DISPONIBILITES":
+                handleSubscribeDisponibilites();
+                break;
+            case "UNSUBSCRIBE_DISPONIBILITES":
+                reservationManager.getAvailabilityFeed().unsubscribe(this);
+                if (pushWriter != null) {
+                    pushWriter.stop();
+                }
+                sendResponse("SUCCESS", null);
+                break;
             case "RESERVER":
                 handleReserver();
                 break;
@@ -109,6 +373,9 @@ public class ClientHandler implements Runnable {
             case "ADMIN_GET_RESERVATIONS":
                 handleAdminGetReservations();
                 break;
+            case "ADMIN_GET_RESERVATIONS_PAGE":
+                handleAdminGetReservationsPage();
+                break;
             case "ADMIN_DELETE_CENTRE":
                 handleAdminDeleteCentre();
                 break;
@@ -135,7 +402,7 @@ public class ClientHandler implements Runnable {
         if (user != null) {
             currentUser = user;
             sendResponse("SUCCESS", user);
-            log("Utilisateur connecté: " + username);
+            log("Utilisateur connecté");
         } else {
             sendResponse("ERROR", "Identifiants invalides");
         }
@@ -150,8 +417,9 @@ public class ClientHandler implements Runnable {
         boolean success = DatabaseManager.registerUser(newUser);
 
         if (success) {
+            StatsCounters.onUserRegistered();
             sendResponse("SUCCESS", "Inscription réussie");
-            log("Nouvel utilisateur enregistré: " + newUser.getUsername());
+            log("Nouvel utilisateur enregistré", "nouveau", newUser.getUsername());
         } else {
             sendResponse("ERROR", "Nom d'utilisateur ou email déjà utilisé");
         }
@@ -161,8 +429,8 @@ public class ClientHandler implements Runnable {
      * Récupère la liste des sports disponibles
      */
     private void handleGetSports() throws IOException {
-        List<Sport> sports = DatabaseManager.getAllSports();
-        sendResponse("SUCCESS", sports);
+        List<Sport> sports = CatalogueCache.getSports();
+        sendCatalogueResponse("sports", sports);
     }
 
     /**
@@ -172,8 +440,8 @@ public class ClientHandler implements Runnable {
         int sportId = input.readInt();
         int centreId = input.readInt();
 
-        List<Terrain> terrains = DatabaseManager.getTerrainsBySportAndCentre(sportId, centreId);
-        sendResponse("SUCCESS", terrains);
+        List<Terrain> terrains = CatalogueCache.getTerrains(sportId, centreId);
+        sendCatalogueResponse("terrains:" + sportId + ":" + centreId, terrains);
     }
 
     /**
@@ -182,16 +450,34 @@ public class ClientHandler implements Runnable {
     private void handleGetCentres() throws IOException, ClassNotFoundException {
         int villeId = input.readInt();
 
-        List<Centre> centres = DatabaseManager.getCentresByVille(villeId);
-        sendResponse("SUCCESS", centres);
+        List<Centre> centres = CatalogueCache.getCentresByVille(villeId);
+        sendCatalogueResponse("centres:" + villeId, centres);
     }
 
     /**
      * Récupère toutes les villes
      */
     private void handleGetVilles() throws IOException {
-        List<Ville> villes = DatabaseManager.getAllVilles();
-        sendResponse("SUCCESS", villes);
+        List<Ville> villes = CatalogueCache.getVilles();
+        sendCatalogueResponse("villes", villes);
+    }
+
+    /**
+     * Liste du catalogue seulement si la copie du client (version connue,
+     * 0 s'il n'en a pas) est périmée ; sinon une réponse sans données
+     */
+    private void handleGetCatalogue() throws IOException, ClassNotFoundException {
+        String key = (String) input.readObject();
+        long knownVersion = input.readLong();
+
+        CatalogueEntry entry = key != null ? CatalogueCache.getEntry(key) : null;
+        if (entry == null) {
+            sendResponse("ERROR", "Catalogue inconnu: " + key);
+        } else if (entry.getVersion() == knownVersion) {
+            sendResponse("SUCCESS", new CatalogueEntry(knownVersion, null));
+        } else {
+            sendEncodedResponse(key, "entry", entry);
+        }
     }
 
     /**
@@ -210,6 +496,86 @@ public class ClientHandler implements Runnable {
         sendResponse("SUCCESS", disponible);
     }
 
+    /**
+     * Renvoie en une fois les créneaux libres de tous les terrains d'un centre
+     */
+    private void handleGetDisponibilitesGrid() throws IOException, ClassNotFoundException {
+        int centreId = input.readInt();
+        int sportId = input.readInt();
+        LocalDate date = (LocalDate) input.readObject();
+
+        DisponibiliteGrid grid = reservationManager.getDisponibiliteGrid(centreId, sportId, date);
+
+        if (grid != null) {
+            sendResponse("SUCCESS", grid);
+        } else {
+            sendResponse("ERROR", "Impossible de charger les disponibilités");
+        }
+    }
+
+    /**
+     * Renvoie la grille d'un centre et abonne la session à ses mises à jour
+     * L'abonnement est pris avant la lecture de la grille : un changement
+     * survenu entre les deux est poussé, jamais perdu.
+     */
+    private void handleSubscribeDisponibilites() throws IOException, ClassNotFoundException {
+        int centreId = input.readInt();
+        int sportId = input.readInt();
+        LocalDate date = (LocalDate) input.readObject();
+
+        if (binaryVersion == 0 || pushSink == null) {
+            sendResponse("ERROR", "Abonnements réservés au protocole binaire");
+            return;
+        }
+
+        AvailabilityFeed feed = reservationManager.getAvailabilityFeed();
+        List<Terrain> terrains = CatalogueCache.getTerrains(sportId, centreId);
+        int[] terrainIds = new int[terrains != null ? terrains.size() : 0];
+        for (int i = 0; i < terrainIds.length; i++) {
+            terrainIds[i] = terrains.get(i).getId();
+        }
+        feed.subscribe(this, date, terrainIds);
+
+        DisponibiliteGrid grid = reservationManager.getDisponibiliteGrid(centreId, sportId, date);
+
+        if (grid != null) {
+            sendResponse("SUCCESS", grid);
+        } else {
+            feed.unsubscribe(this);
+            sendResponse("ERROR", "Impossible de charger les disponibilités");
+        }
+    }
+
+    /**
+     * Pousse le nouveau masque d'un terrain : [DISPONIBILITE_UPDATE][0][delta]
+     */
+    @Override
+    public boolean push(DisponibiliteDelta delta) {
+        FrameSink sink = pushSink;
+        if (sink == null || !connected) {
+            return false;
+        }
+
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(16);
+            BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(buffer);
+            encoder.writeByte(Opcode.DISPONIBILITE_UPDATE.getCode());
+            encoder.writeInt(0);
+            encoder.writeObject(delta);
+            encoder.flush();
+
+            byte[] payload = buffer.toByteArray();
+            if (!sink.send(payload)) {
+                return false;
+            }
+            ServerMetrics.addBytesOut(4 + payload.length);
+            return true;
+        } catch (IOException e) {
+            warn("Mise à jour des disponibilités non envoyée", "erreur", e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Crée une nouvelle réservation (avec synchronisation)
      */
@@ -223,11 +589,17 @@ public class ClientHandler implements Runnable {
         reservation.setUserId(currentUser.getId());
 
         try {
-            boolean success = reservationManager.createReservation(reservation);
+            ReservationManager.Creation creation = reservationManager.createReservation(reservation);
 
-            if (success) {
+            if (creation == ReservationManager.Creation.CONFIRMEE) {
                 sendResponse("SUCCESS", "Réservation confirmée");
-                log("Réservation créée pour: " + currentUser.getUsername());
+                log("Réservation créée", "terrain", reservation.getTerrainId(),
+                        "date", reservation.getDateReservation(), "debut", reservation.getHeureDebut());
+            } else if (creation == ReservationManager.Creation.EN_VALIDATION) {
+                // Ni confirmée ni refusée : le lot d'écriture peut encore aboutir
+                sendResponse("ERROR", "Réservation en cours de validation, vérifiez vos réservations");
+                warn("Réservation non confirmée dans le délai", "terrain", reservation.getTerrainId(),
+                        "date", reservation.getDateReservation(), "debut", reservation.getHeureDebut());
             } else {
                 sendResponse("ERROR", "Terrain non disponible sur ce créneau");
             }
@@ -253,8 +625,8 @@ public class ClientHandler implements Runnable {
      * Récupère les abonnements disponibles
      */
     private void handleGetAbonnements() throws IOException {
-        List<Abonnement> abonnements = DatabaseManager.getAllAbonnements();
-        sendResponse("SUCCESS", abonnements);
+        List<Abonnement> abonnements = CatalogueCache.getAbonnements();
+        sendCatalogueResponse("abonnements", abonnements);
     }
 
     /**
@@ -283,7 +655,7 @@ public class ClientHandler implements Runnable {
     private void handleAnnulerReservation() throws IOException, ClassNotFoundException {
         int reservationId = input.readInt();
 
-        boolean success = DatabaseManager.annulerReservation(reservationId);
+        boolean success = reservationManager.annulerReservation(reservationId);
 
         if (success) {
             sendResponse("SUCCESS", "Réservation annulée");
@@ -301,8 +673,8 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        // Récupérer les stats depuis la base
-        Object stats = DatabaseManager.getStatistiques();
+        // Compteurs tenus en mémoire, recalés périodiquement sur la base
+        Object stats = StatsCounters.getStatistiques();
         sendResponse("SUCCESS", stats);
     }
 
@@ -333,7 +705,7 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * Récupère toutes les réservations (admin uniquement)
+     * Récupère les réservations les plus récentes (admin uniquement)
      */
     private void handleAdminGetReservations() throws IOException {
         if (currentUser == null || !currentUser.isAdmin()) {
@@ -341,7 +713,24 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        List<Reservation> reservations = DatabaseManager.getAllReservations();
+        // Ancienne commande sans critères : seulement les plus récentes
+        ReservationFilter filter = new ReservationFilter();
+        filter.setLimit(ReservationFilter.MAX_LIMIT);
+        List<Reservation> reservations = DatabaseManager.getReservationsPage(filter);
+        sendResponse("SUCCESS", reservations);
+    }
+
+    /**
+     * Récupère une page de réservations filtrées (admin uniquement)
+     */
+    private void handleAdminGetReservationsPage() throws IOException, ClassNotFoundException {
+        if (currentUser == null || !currentUser.isAdmin()) {
+            sendResponse("ERROR", "Accès non autorisé");
+            return;
+        }
+
+        ReservationFilter filter = (ReservationFilter) input.readObject();
+        List<Reservation> reservations = DatabaseManager.getReservationsPage(filter);
         sendResponse("SUCCESS", reservations);
     }
 
@@ -358,8 +747,9 @@ public class ClientHandler implements Runnable {
         boolean success = DatabaseManager.deleteCentre(centreId);
 
         if (success) {
+            CatalogueCache.invalidateCentres();
             sendResponse("SUCCESS", true);
-            log("Centre supprimé par admin: " + currentUser.getUsername());
+            log("Centre supprimé", "centre", centreId);
         } else {
             sendResponse("ERROR", "Impossible de supprimer le centre");
         }
@@ -380,8 +770,10 @@ public class ClientHandler implements Runnable {
         boolean success = DatabaseManager.bloquerTerrain(terrainId, raison);
 
         if (success) {
+            CatalogueCache.invalidateTerrains();
+            StatsCounters.onTerrainBlocked();
             sendResponse("SUCCESS", true);
-            log("Terrain bloqué par admin: " + currentUser.getUsername() + " - Raison: " + raison);
+            log("Terrain bloqué", "terrain", terrainId, "raison", raison);
         } else {
             sendResponse("ERROR", "Impossible de bloquer le terrain");
         }
@@ -391,18 +783,66 @@ public class ClientHandler implements Runnable {
      * Envoie une réponse au client
      */
     private void sendResponse(String status, Object data) throws IOException {
+        errorResponse = "ERROR".equals(status);
         output.writeObject(status);
         output.writeObject(data);
         output.flush();
     }
 
+    /**
+     * Réponse SUCCESS portant une liste du cache catalogue
+     * En mode tramé, les octets encodés sont réutilisés tant que CatalogueCache
+     * sert la même liste (instantané immuable) ; l'ancien protocole partage
+     * un flux de sérialisation continu et ne peut pas recopier des octets tout faits.
+     */
+    private void sendCatalogueResponse(String key, List<?> data) throws IOException {
+        sendEncodedResponse(key, "list", data);
+    }
+
+    /**
+     * Réponse SUCCESS dont l'encodage est gardé sur l'instantané de
+     * CatalogueCache d'où vient data (liste ou entrée versionnée), et
+     * disparaît avec lui
+     */
+    private void sendEncodedResponse(String key, String kind, Object data) throws IOException {
+        if (!framed) {
+            sendResponse("SUCCESS", data);
+            return;
+        }
+
+        String format = (binaryVersion > 0 ? "binary" + binaryVersion : "serialized") + ":" + kind;
+        preEncodedResponse = CatalogueCache.encoded(key, data, format, () -> encodeResponse(data));
+    }
+
+    /**
+     * Encode statut + données comme le ferait sendResponse() dans une trame
+     */
+    private byte[] encodeResponse(Object data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutput encoder = binaryVersion > 0
+                ? new BinaryCodec.Encoder(buffer)
+                : new ObjectOutputStream(buffer);
+        encoder.writeObject("SUCCESS");
+        encoder.writeObject(data);
+        encoder.flush();
+        return buffer.toByteArray();
+    }
+
     /**
      * Ferme la connexion proprement
      */
-    private void disconnect() {
+    void disconnect() {
+        if (sessionCounted.compareAndSet(true, false)) {
+            ServerMetrics.sessionClosed();
+        }
+        pushSink = null;
+        reservationManager.getAvailabilityFeed().unsubscribe(this);
+        if (pushWriter != null) {
+            pushWriter.close();
+        }
         try {
             if (currentUser != null) {
-                log("Utilisateur déconnecté: " + currentUser.getUsername());
+                log("Utilisateur déconnecté");
             }
 
             if (input != null) input.close();
@@ -410,11 +850,136 @@ public class ClientHandler implements Runnable {
             if (clientSocket != null) clientSocket.close();
 
         } catch (IOException e) {
-            log("Erreur lors de la déconnexion: " + e.getMessage());
+            warn("Erreur lors de la déconnexion", "erreur", e.getMessage());
+        }
+    }
+
+    /**
+     * Compte la session à son premier signe d'activité : une connexion
+     * NIO rendue à un handler bloquant n'est ainsi comptée qu'une fois
+     */
+    private void openSession() {
+        if (sessionCounted.compareAndSet(false, true)) {
+            ServerMetrics.sessionOpened();
+        }
+    }
+
+    /**
+     * Journal asynchrone, avec la session, l'utilisateur et la commande en cours
+     */
+    private void log(String message, Object... fields) {
+        ServerLog.log(ServerLog.Level.INFO, "ClientHandler", message, withSession(fields));
+    }
+
+    private void warn(String message, Object... fields) {
+        ServerLog.log(ServerLog.Level.WARN, "ClientHandler", message, withSession(fields));
+    }
+
+    private Object[] withSession(Object[] fields) {
+        Object[] all = new Object[6 + fields.length];
+        all[0] = "session";
+        all[1] = sessionId;
+        all[2] = "user";
+        all[3] = currentUser != null ? currentUser.getUsername() : null;
+        all[4] = "command";
+        all[5] = currentCommand;
+        System.arraycopy(fields, 0, all, 6, fields.length);
+        return all;
+    }
+
+    private static ThreadFactory pushThreadFactory() {
+        ThreadFactory virtual = ServerMain.newVirtualThreadFactory();
+        if (virtual != null) {
+            return virtual;
         }
+        return task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
-    private void log(String message) {
-        System.out.println("[ClientHandler] " + message);
+    /**
+     * Trames poussées d'une session bloquante : file bornée vidée par un thread
+     * qui ne vit que tant que la session reçoit des trames (démarré au premier
+     * envoi, arrêté au désabonnement). Un client qui ne lit plus remplit la
+     * file et send() rend faux (désabonnement), sans jamais bloquer l'appelant.
+     */
+    private static final class PushWriter implements FrameSink, Runnable {
+        // Marque de fin déposée par stop(), après les trames déjà en file
+        private static final byte[] STOP = new byte[0];
+
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(MAX_PUSH_BACKLOG);
+        private final DataOutputStream out;
+        private final String name;
+        private Thread thread;  // Sous le moniteur de l'instance
+        private volatile boolean closed;
+
+        PushWriter(DataOutputStream out, String name) {
+            this.out = out;
+            this.name = name;
+        }
+
+        @Override
+        public boolean send(byte[] payload) {
+            if (closed) {
+                return false;
+            }
+            if (!queue.offer(payload)) {
+                stop();  // La session va être désabonnée
+                return false;
+            }
+            synchronized (this) {
+                if (thread == null) {
+                    startThread();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] payload;
+                while (!closed && (payload = queue.take()) != STOP) {
+                    synchronized (out) {
+                        FrameUtil.writeFrame(out, payload);
+                    }
+                }
+            } catch (InterruptedException | IOException e) {
+                closed = true;  // Session fermée
+                queue.clear();
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                    // Trames arrivées après la marque de fin : un nouveau thread s'en charge
+                    if (!closed && !queue.isEmpty()) {
+                        startThread();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Arrête le thread d'écriture sans interrompre une écriture en cours ;
+         * les trames encore en file sont abandonnées
+         */
+        synchronized void stop() {
+            if (thread != null) {
+                queue.clear();
+                queue.offer(STOP);
+            }
+        }
+
+        void close() {
+            closed = true;
+            stop();
+        }
+
+        private void startThread() {
+            thread = PUSH_THREADS.newThread(this);
+            thread.setName(name);
+            thread.start();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,298 @@
+package asmaa.server;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de connexions JDBC pour DatabaseManager
+ *
+ * Chaque appel à getConnection() emprunte une connexion physique dédiée ;
+ * close() sur la connexion retournée la rend au pool. Une transaction laissée
+ * ouverte est annulée au retour, elle ne peut donc pas déborder sur la
+ * requête suivante. Un thread de maintenance garde minSize connexions prêtes,
+ * ferme les connexions inactives en trop et signale les emprunts trop longs.
+ */
+public class ConnectionPool {
+
+    private static final long IDLE_TIMEOUT_MS = 5 * 60 * 1000;
+    private static final long VALIDATE_AFTER_IDLE_MS = 30 * 1000;
+    private static final int VALIDATION_TIMEOUT_S = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long checkoutTimeoutMs;
+    private final long leakThresholdMs;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long checkoutTimeoutMs, long leakThresholdMs) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.checkoutTimeoutMs = checkoutTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.add(openPhysical());
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::maintain, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Emprunte une connexion (à fermer par l'appelant, idéalement via try-with-resources)
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool de connexions fermé");
+        }
+
+        try {
+            if (!permits.tryAcquire(checkoutTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Aucune connexion disponible après " + checkoutTimeoutMs
+                        + " ms (" + inUse.size() + "/" + maxSize + " empruntées)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente de connexion interrompue", e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = openPhysical();
+            }
+
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrower = leakThresholdMs > 0 ? new Throwable("Emprunt de la connexion") : null;
+            pooled.leakReported = false;
+            inUse.add(pooled);
+            return pooled.newHandle();
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Ferme toutes les connexions du pool
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Nombre de connexions physiques ouvertes
+     */
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    /**
+     * Nombre de connexions actuellement empruntées
+     */
+    public int getActiveConnections() {
+        return inUse.size();
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        // LIFO : la connexion la plus récemment rendue est la plus susceptible d'être encore valide
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.returnedAt < VALIDATE_AFTER_IDLE_MS
+                    || isValid(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Connexion déjà inutilisable
+        }
+    }
+
+    /**
+     * Retour d'une connexion : réinitialise son état transactionnel avant réutilisation
+     */
+    private void release(PooledConnection pooled) {
+        inUse.remove(pooled);
+
+        try {
+            boolean reusable = !closed && !pooled.physical.isClosed();
+            if (reusable && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+
+            if (reusable) {
+                pooled.returnedAt = System.currentTimeMillis();
+                idle.addFirst(pooled);
+            } else {
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Maintenance périodique : emprunts suspects, connexions inactives, taille minimale
+     */
+    private void maintain() {
+        long now = System.currentTimeMillis();
+
+        if (leakThresholdMs > 0) {
+            for (PooledConnection pooled : inUse) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMs) {
+                    pooled.leakReported = true;
+                    ServerLog.warn("ConnectionPool", "Fuite probable : connexion empruntée depuis "
+                                    + (now - pooled.borrowedAt) + " ms",
+                            "emprunteur", pooled.borrower != null ? stackTrace(pooled.borrower) : null);
+                }
+            }
+        }
+
+        // Fermer les connexions inactives au-delà de minSize (les plus anciennes sont en fin de file)
+        PooledConnection oldest;
+        while (idle.size() > minSize && (oldest = idle.peekLast()) != null
+                && now - oldest.returnedAt > IDLE_TIMEOUT_MS) {
+            if (idle.removeLastOccurrence(oldest)) {
+                discard(oldest);
+            }
+        }
+
+        while (!closed && total.get() < minSize) {
+            try {
+                idle.addLast(openPhysical());
+            } catch (SQLException e) {
+                log("Impossible de rouvrir une connexion: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Pile d'appels de l'emprunt, pour le journal
+     */
+    private static String stackTrace(Throwable borrower) {
+        StringWriter trace = new StringWriter();
+        borrower.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+
+    private static void log(String message) {
+        ServerLog.warn("ConnectionPool", message);
+    }
+
+    /**
+     * Connexion physique et état d'emprunt
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long returnedAt = System.currentTimeMillis();
+        private volatile Throwable borrower;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Poignée remise à l'appelant : close() rend la connexion au lieu de la fermer
+         */
+        Connection newHandle() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean released;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!released) {
+                                released = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return released || physical.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "PooledConnection[" + physical + "]";
+                        default:
+                            if (released) {
+                                throw new SQLException("Connexion déjà rendue au pool");
+                            }
+                            try {
+                                return method.invoke(physical, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                }
+            };
+
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+    }
+}
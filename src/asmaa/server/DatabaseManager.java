@@ -7,11 +7,13 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Gestionnaire de base de données MySQL pour ASMAA-Club
- * Utilise le pattern Singleton et un pool de connexions
+ * Utilise le pattern Singleton et un pool de connexions (ConnectionPool)
  */
 public class DatabaseManager {
 
@@ -20,22 +22,34 @@ public class DatabaseManager {
     private static final String USER = "root";
     private static final String PASSWORD = "root";  // Modifier selon votre configuration
 
-    private static Connection connection;
-    private static final Object connectionLock = new Object();
+    // Configuration du pool de connexions
+    private static final int POOL_MIN_SIZE = Integer.getInteger("asmaa.db.pool.min", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("asmaa.db.pool.max", 20);
+    private static final long POOL_TIMEOUT_MS = Long.getLong("asmaa.db.pool.timeoutMs", 5000L);
+    private static final long POOL_LEAK_MS = Long.getLong("asmaa.db.pool.leakMs", 30000L);
+
+    private static volatile ConnectionPool pool;
+    private static final Object poolLock = new Object();
 
     /**
-     * Initialise la connexion à la base de données
+     * Initialise le pool de connexions à la base de données
      */
     public static void initialize() {
-        synchronized (connectionLock) {
+        synchronized (poolLock) {
+            if (pool != null) {
+                return;
+            }
+
             try {
                 // Charger le driver MySQL
                 Class.forName("com.mysql.cj.jdbc.Driver");
 
-                // Créer la connexion
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
+                // Créer le pool (ouvre POOL_MIN_SIZE connexions)
+                pool = new ConnectionPool(URL, USER, PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                        POOL_TIMEOUT_MS, POOL_LEAK_MS);
 
-                System.out.println("✓ Connexion à la base de données réussie");
+                System.out.println("✓ Connexion à la base de données réussie (pool "
+                        + POOL_MIN_SIZE + "-" + POOL_MAX_SIZE + ")");
 
             } catch (ClassNotFoundException e) {
                 System.err.println("✗ Driver MySQL non trouvé: " + e.getMessage());
@@ -48,21 +62,14 @@ public class DatabaseManager {
     }
 
     /**
-     * Obtenir une connexion à la base de données (thread-safe)
-     * Note: Pour une meilleure performance en production, utilisez un pool de connexions (HikariCP)
+     * Emprunte une connexion au pool (thread-safe)
+     * La connexion doit être fermée par l'appelant pour être rendue au pool
      */
     public static Connection getConnection() throws SQLException {
-        synchronized (connectionLock) {
-            try {
-                if (connection == null || connection.isClosed()) {
-                    initialize();
-                }
-            } catch (SQLException e) {
-                // Si la connexion est fermée, réinitialiser
-                initialize();
-            }
-            return connection;
+        if (pool == null) {
+            initialize();
         }
+        return pool.getConnection();
     }
 
     // ==================== GESTION DES UTILISATEURS ====================
@@ -73,7 +80,8 @@ public class DatabaseManager {
     public static User authenticateUser(String username, String password) {
         String sql = "SELECT * FROM users WHERE username = ? AND actif = TRUE";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, username);
 
             ResultSet rs = stmt.executeQuery();
@@ -102,7 +110,8 @@ public class DatabaseManager {
         String sql = "INSERT INTO users (username, email, password, nom, prenom, telephone, role) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
 
             stmt.setString(3, PasswordUtil.hashPassword(user.getPassword(), user.getUsername()));
@@ -158,7 +167,8 @@ public class DatabaseManager {
         List<Sport> sports = new ArrayList<>();
         String sql = "SELECT * FROM sports ORDER BY nom";
 
-        try (Statement stmt = getConnection().createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -186,7 +196,8 @@ public class DatabaseManager {
         List<Ville> villes = new ArrayList<>();
         String sql = "SELECT * FROM villes ORDER BY nom";
 
-        try (Statement stmt = getConnection().createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -215,7 +226,8 @@ public class DatabaseManager {
         List<Centre> centres = new ArrayList<>();
         String sql = "SELECT * FROM centres WHERE ville_id = ? AND actif = TRUE ORDER BY nom";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, villeId);
             ResultSet rs = stmt.executeQuery();
 
@@ -253,7 +265,8 @@ public class DatabaseManager {
                 "WHERE t.sport_id = ? AND t.centre_id = ? AND t.actif = TRUE " +
                 "ORDER BY t.nom";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, sportId);
             stmt.setInt(2, centreId);
             ResultSet rs = stmt.executeQuery();
@@ -290,7 +303,8 @@ public class DatabaseManager {
                 "JOIN centres c ON t.centre_id = c.id " +
                 "WHERE t.id = ?";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, terrainId);
             ResultSet rs = stmt.executeQuery();
 
@@ -325,7 +339,8 @@ public class DatabaseManager {
                                              LocalTime heureDebut, LocalTime heureFin) {
         String sql = "CALL verifier_disponibilite(?, ?, ?, ?)";
 
-        try (CallableStatement stmt = getConnection().prepareCall(sql)) {
+        try (Connection conn = getConnection();
+             CallableStatement stmt = conn.prepareCall(sql)) {
             stmt.setInt(1, terrainId);
             stmt.setDate(2, Date.valueOf(date));
             stmt.setTime(3, Time.valueOf(heureDebut));
@@ -344,6 +359,89 @@ public class DatabaseManager {
         return false;
     }
 
+    /**
+     * Créneaux non annulés d'un terrain pour une date (chargement de AvailabilityIndex)
+     * Retourne null en cas d'erreur pour ne pas indexer une journée vide à tort
+     */
+    public static List<Reservation> getReservationSlots(int terrainId, LocalDate date) {
+        List<Reservation> reservations = new ArrayList<>();
+        String sql = "SELECT id, heure_debut, heure_fin FROM reservations " +
+                "WHERE terrain_id = ? AND date_reservation = ? AND statut <> 'ANNULEE'";
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, terrainId);
+            stmt.setDate(2, Date.valueOf(date));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Reservation reservation = new Reservation();
+                    reservation.setId(rs.getInt("id"));
+                    reservation.setTerrainId(terrainId);
+                    reservation.setDateReservation(date);
+                    reservation.setHeureDebut(rs.getTime("heure_debut").toLocalTime());
+                    reservation.setHeureFin(rs.getTime("heure_fin").toLocalTime());
+                    reservations.add(reservation);
+                }
+            }
+            return reservations;
+
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du chargement des créneaux: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Créneaux non annulés de tous les terrains actifs d'un centre pour un sport
+     * et une date, en une seule requête (grille des disponibilités)
+     * Chaque terrain est présent, avec une liste vide s'il n'a aucune réservation.
+     * Retourne null en cas d'erreur.
+     */
+    public static Map<Integer, List<Reservation>> getReservationSlotsByCentre(int centreId, int sportId,
+                                                                              LocalDate date) {
+        Map<Integer, List<Reservation>> slots = new LinkedHashMap<>();
+        String sql = "SELECT t.id AS terrain_id, r.id, r.heure_debut, r.heure_fin " +
+                "FROM terrains t " +
+                "LEFT JOIN reservations r ON r.terrain_id = t.id " +
+                "AND r.date_reservation = ? AND r.statut <> 'ANNULEE' " +
+                "WHERE t.centre_id = ? AND t.sport_id = ? AND t.actif = TRUE " +
+                "ORDER BY t.nom, r.heure_debut";
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(date));
+            stmt.setInt(2, centreId);
+            stmt.setInt(3, sportId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int terrainId = rs.getInt("terrain_id");
+                    List<Reservation> reservations = slots.computeIfAbsent(terrainId, k -> new ArrayList<>());
+
+                    Time heureDebut = rs.getTime("heure_debut");
+                    if (heureDebut == null) {
+                        continue;  // Terrain sans réservation ce jour-là
+                    }
+                    Reservation reservation = new Reservation();
+                    reservation.setId(rs.getInt("id"));
+                    reservation.setTerrainId(terrainId);
+                    reservation.setDateReservation(date);
+                    reservation.setHeureDebut(heureDebut.toLocalTime());
+                    reservation.setHeureFin(rs.getTime("heure_fin").toLocalTime());
+                    reservations.add(reservation);
+                }
+            }
+            return slots;
+
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du chargement de la grille: " + e.getMessage());
+        }
+
+        return null;
+    }
+
     /**
      * Crée une nouvelle réservation
      */
@@ -352,9 +450,8 @@ public class DatabaseManager {
                 "heure_debut, heure_fin, prix_total, remise_appliquee, statut) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
-        Connection conn = null;
-        try {
-            conn = getConnection();
+        // Connexion dédiée à la transaction : l'autoCommit désactivé ne touche aucune autre requête
+        try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);  // Début de transaction
 
             try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
@@ -382,25 +479,96 @@ public class DatabaseManager {
                     conn.commit();  // Valider la transaction
                     return true;
                 }
+
+                conn.rollback();
+
+            } catch (SQLException e) {
+                conn.rollback();  // Annuler en cas d'erreur
+                throw e;
             }
 
         } catch (SQLException e) {
             System.err.println("Erreur lors de la création de la réservation: " + e.getMessage());
-            try {
-                if (conn != null) {
-                    conn.rollback();  // Annuler en cas d'erreur
+        }
+
+        return false;
+    }
+
+    /**
+     * Crée un lot de réservations et leurs paiements dans une seule transaction
+     * Deux INSERT multi-lignes et un seul commit pour tout le lot ; les ids
+     * générés sont reportés sur les réservations. Tout ou rien.
+     */
+    public static boolean createReservations(List<Reservation> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        StringBuilder sqlReservations = new StringBuilder("INSERT INTO reservations (user_id, terrain_id, " +
+                "date_reservation, heure_debut, heure_fin, prix_total, remise_appliquee, statut) VALUES ");
+        StringBuilder sqlPaiements = new StringBuilder("INSERT INTO paiements " +
+                "(reservation_id, user_id, montant, mode_paiement, statut) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            sqlReservations.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?)");
+            sqlPaiements.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?)");
+        }
+
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlReservations.toString(),
+                    Statement.RETURN_GENERATED_KEYS)) {
+                int param = 1;
+                for (Reservation reservation : batch) {
+                    stmt.setInt(param++, reservation.getUserId());
+                    stmt.setInt(param++, reservation.getTerrainId());
+                    stmt.setDate(param++, Date.valueOf(reservation.getDateReservation()));
+                    stmt.setTime(param++, Time.valueOf(reservation.getHeureDebut()));
+                    stmt.setTime(param++, Time.valueOf(reservation.getHeureFin()));
+                    stmt.setDouble(param++, reservation.getPrixTotal());
+                    stmt.setDouble(param++, reservation.getRemiseAppliquee());
+                    stmt.setString(param++, reservation.getStatut().name());
                 }
-            } catch (SQLException ex) {
-                System.err.println("Erreur lors du rollback: " + ex.getMessage());
-            }
-        } finally {
-            try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
+
+                if (stmt.executeUpdate() != batch.size()) {
+                    conn.rollback();
+                    return false;
+                }
+
+                // Les clés sont rendues dans l'ordre des lignes insérées
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    for (Reservation reservation : batch) {
+                        if (!generatedKeys.next()) {
+                            conn.rollback();
+                            return false;
+                        }
+                        reservation.setId(generatedKeys.getInt(1));
+                    }
                 }
+
+                try (PreparedStatement paiements = conn.prepareStatement(sqlPaiements.toString())) {
+                    param = 1;
+                    for (Reservation reservation : batch) {
+                        paiements.setInt(param++, reservation.getId());
+                        paiements.setInt(param++, reservation.getUserId());
+                        paiements.setDouble(param++, reservation.getPrixTotal());
+                        paiements.setString(param++, "CARTE");  // Mode de paiement par défaut
+                        paiements.setString(param++, "VALIDE");
+                    }
+                    paiements.executeUpdate();
+                }
+
+                conn.commit();
+                return true;
+
             } catch (SQLException e) {
-                System.err.println("Erreur lors de la réinitialisation d'autoCommit: " + e.getMessage());
+                conn.rollback();
+                throw e;
             }
+
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la création d'un lot de " + batch.size()
+                    + " réservations: " + e.getMessage());
         }
 
         return false;
@@ -437,7 +605,8 @@ public class DatabaseManager {
                 "WHERE r.user_id = ? " +
                 "ORDER BY r.date_reservation DESC, r.heure_debut DESC";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
@@ -457,19 +626,56 @@ public class DatabaseManager {
      * Annule une réservation
      */
     public static boolean annulerReservation(int reservationId) {
-        String sql = "UPDATE reservations SET statut = 'ANNULEE' WHERE id = ?";
+        return annulerReservationDetaillee(reservationId) != null;
+    }
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
-            stmt.setInt(1, reservationId);
+    /**
+     * Annule une réservation et renvoie son terrain, sa date, son statut et son
+     * prix d'avant l'annulation (null si elle n'existe pas ou en cas d'erreur)
+     */
+    public static Reservation annulerReservationDetaillee(int reservationId) {
+        String sqlSelect = "SELECT terrain_id, date_reservation, statut, prix_total " +
+                "FROM reservations WHERE id = ? FOR UPDATE";
+        String sqlUpdate = "UPDATE reservations SET statut = 'ANNULEE' WHERE id = ?";
+
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement select = conn.prepareStatement(sqlSelect);
+                 PreparedStatement update = conn.prepareStatement(sqlUpdate)) {
+                select.setInt(1, reservationId);
+
+                Reservation previous = null;
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        previous = new Reservation();
+                        previous.setId(reservationId);
+                        previous.setTerrainId(rs.getInt("terrain_id"));
+                        previous.setDateReservation(rs.getDate("date_reservation").toLocalDate());
+                        previous.setStatut(Reservation.Statut.valueOf(rs.getString("statut")));
+                        previous.setPrixTotal(rs.getDouble("prix_total"));
+                    }
+                }
 
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                update.setInt(1, reservationId);
+                if (previous == null || update.executeUpdate() == 0) {
+                    conn.rollback();
+                    return null;
+                }
+
+                conn.commit();
+                return previous;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
 
         } catch (SQLException e) {
             System.err.println("Erreur lors de l'annulation: " + e.getMessage());
         }
 
-        return false;
+        return null;
     }
 
     /**
@@ -501,7 +707,8 @@ public class DatabaseManager {
         List<Abonnement> abonnements = new ArrayList<>();
         String sql = "SELECT * FROM abonnements WHERE actif = TRUE ORDER BY prix";
 
-        try (Statement stmt = getConnection().createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -534,7 +741,8 @@ public class DatabaseManager {
                 "a.nombre_reservations, TRUE " +
                 "FROM abonnements a WHERE a.id = ?";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             stmt.setInt(2, abonnementId);
             stmt.setInt(3, abonnementId);
@@ -558,7 +766,8 @@ public class DatabaseManager {
         List<Centre> centres = new ArrayList<>();
         String sql = "SELECT * FROM centres ORDER BY nom";
 
-        try (Statement stmt = getConnection().createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -592,7 +801,8 @@ public class DatabaseManager {
                 "JOIN centres c ON t.centre_id = c.id " +
                 "ORDER BY t.nom";
 
-        try (Statement stmt = getConnection().createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -618,23 +828,72 @@ public class DatabaseManager {
     }
 
     /**
-     * Récupère toutes les réservations (admin)
+     * Récupère une page de réservations (admin)
+     * Pagination par clé (date, heure de début, id) : le coût d'une page ne
+     * dépend pas de sa position dans l'historique et la mémoire reste bornée
+     * par la taille de page.
      */
-    public static List<Reservation> getAllReservations() {
-        List<Reservation> reservations = new ArrayList<>();
-        String sql = "SELECT r.*, t.nom as terrain_nom, s.nom as sport_nom, c.nom as centre_nom " +
+    public static List<Reservation> getReservationsPage(ReservationFilter filter) {
+        int limit = filter.getLimitBornee();
+        List<Reservation> reservations = new ArrayList<>(limit);
+        List<Object> params = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT r.*, t.nom as terrain_nom, s.nom as sport_nom, c.nom as centre_nom " +
                 "FROM reservations r " +
                 "JOIN terrains t ON r.terrain_id = t.id " +
                 "JOIN sports s ON t.sport_id = s.id " +
                 "JOIN centres c ON t.centre_id = c.id " +
-                "ORDER BY r.date_reservation DESC, r.heure_debut DESC";
+                "WHERE 1 = 1");
 
-        try (Statement stmt = getConnection().createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        if (filter.getDateDebut() != null) {
+            sql.append(" AND r.date_reservation >= ?");
+            params.add(Date.valueOf(filter.getDateDebut()));
+        }
+        if (filter.getDateFin() != null) {
+            sql.append(" AND r.date_reservation <= ?");
+            params.add(Date.valueOf(filter.getDateFin()));
+        }
+        if (filter.getCentreId() > 0) {
+            sql.append(" AND t.centre_id = ?");
+            params.add(filter.getCentreId());
+        }
+        if (filter.getUserId() > 0) {
+            sql.append(" AND r.user_id = ?");
+            params.add(filter.getUserId());
+        }
+        if (filter.getStatut() != null) {
+            sql.append(" AND r.statut = ?");
+            params.add(filter.getStatut().name());
+        }
+        if (filter.hasCurseur()) {
+            // (date, heure, id) < curseur, développé pour rester exploitable par un index
+            Date apresDate = Date.valueOf(filter.getApresDate());
+            Time apresHeure = Time.valueOf(filter.getApresHeure());
+            sql.append(" AND (r.date_reservation < ?" +
+                    " OR (r.date_reservation = ? AND r.heure_debut < ?)" +
+                    " OR (r.date_reservation = ? AND r.heure_debut = ? AND r.id < ?))");
+            params.add(apresDate);
+            params.add(apresDate);
+            params.add(apresHeure);
+            params.add(apresDate);
+            params.add(apresHeure);
+            params.add(filter.getApresId());
+        }
 
-            while (rs.next()) {
-                Reservation reservation = extractReservationFromResultSet(rs);
-                reservations.add(reservation);
+        sql.append(" ORDER BY r.date_reservation DESC, r.heure_debut DESC, r.id DESC LIMIT ?");
+        params.add(limit);
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (reservations.size() < limit && rs.next()) {
+                    reservations.add(extractReservationFromResultSet(rs));
+                }
             }
 
         } catch (SQLException e) {
@@ -650,7 +909,8 @@ public class DatabaseManager {
     public static boolean deleteCentre(int centreId) {
         String sql = "UPDATE centres SET actif = FALSE WHERE id = ?";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, centreId);
             int affectedRows = stmt.executeUpdate();
             return affectedRows > 0;
@@ -668,7 +928,8 @@ public class DatabaseManager {
     public static boolean bloquerTerrain(int terrainId, String raison) {
         String sql = "UPDATE terrains SET actif = FALSE WHERE id = ?";
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, terrainId);
             int affectedRows = stmt.executeUpdate();
 
@@ -688,76 +949,48 @@ public class DatabaseManager {
     // ==================== STATISTIQUES (ADMIN) ====================
 
     /**
-     * Récupère les statistiques globales
+     * Récupère les statistiques globales en une seule requête
+     * (sert au recalage de StatsCounters ; null en cas d'erreur)
      */
-    public static java.util.Map<String, Object> getStatistiques() {
-        java.util.Map<String, Object> stats = new java.util.HashMap<>();
-
-        try {
-            // Nombre total d'utilisateurs
-            String sqlUsers = "SELECT COUNT(*) as total FROM users WHERE actif = TRUE";
-            try (Statement stmt = getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(sqlUsers)) {
-                if (rs.next()) {
-                    stats.put("totalUsers", rs.getInt("total"));
-                }
-            }
-
-            // Nombre total de réservations
-            String sqlReservations = "SELECT COUNT(*) as total FROM reservations";
-            try (Statement stmt = getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(sqlReservations)) {
-                if (rs.next()) {
-                    stats.put("totalReservations", rs.getInt("total"));
-                }
-            }
-
-            // Réservations confirmées
-            String sqlConfirmed = "SELECT COUNT(*) as total FROM reservations WHERE statut = 'CONFIRMEE'";
-            try (Statement stmt = getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(sqlConfirmed)) {
-                if (rs.next()) {
-                    stats.put("reservationsConfirmees", rs.getInt("total"));
-                }
-            }
-
-            // Revenus totaux
-            String sqlRevenus = "SELECT SUM(prix_total) as total FROM reservations WHERE statut = 'CONFIRMEE'";
-            try (Statement stmt = getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(sqlRevenus)) {
-                if (rs.next()) {
-                    double revenus = rs.getDouble("total");
-                    stats.put("revenusTotaux", rs.wasNull() ? 0.0 : revenus);
-                }
-            }
+    public static Map<String, Object> getStatistiques() {
+        String sql = "SELECT (SELECT COUNT(*) FROM users WHERE actif = TRUE) AS total_users, " +
+                "COUNT(*) AS total_reservations, " +
+                "COALESCE(SUM(CASE WHEN statut = 'CONFIRMEE' THEN 1 ELSE 0 END), 0) AS reservations_confirmees, " +
+                "COALESCE(SUM(CASE WHEN statut = 'CONFIRMEE' THEN prix_total ELSE 0 END), 0) AS revenus, " +
+                "(SELECT COUNT(*) FROM terrains WHERE actif = TRUE) AS terrains_actifs " +
+                "FROM reservations";
+
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
 
-            // Nombre de terrains actifs
-            String sqlTerrains = "SELECT COUNT(*) as total FROM terrains WHERE actif = TRUE";
-            try (Statement stmt = getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(sqlTerrains)) {
-                if (rs.next()) {
-                    stats.put("terrainsActifs", rs.getInt("total"));
-                }
+            if (rs.next()) {
+                Map<String, Object> stats = new java.util.HashMap<>();
+                stats.put("totalUsers", rs.getInt("total_users"));
+                stats.put("totalReservations", rs.getInt("total_reservations"));
+                stats.put("reservationsConfirmees", rs.getInt("reservations_confirmees"));
+                stats.put("revenusTotaux", rs.getDouble("revenus"));
+                stats.put("terrainsActifs", rs.getInt("terrains_actifs"));
+                return stats;
             }
 
         } catch (SQLException e) {
             System.err.println("Erreur lors de la récupération des statistiques: " + e.getMessage());
         }
 
-        return stats;
+        return null;
     }
 
     /**
-     * Ferme la connexion à la base de données
+     * Ferme le pool de connexions à la base de données
      */
     public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+        synchronized (poolLock) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
                 System.out.println("Connexion à la base de données fermée");
             }
-        } catch (SQLException e) {
-            System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
         }
     }
 }
\ No newline at end of file
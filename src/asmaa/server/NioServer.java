@@ -0,0 +1,433 @@
+package asmaa.server;
+
+import asmaa.utils.FrameUtil;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Frontal réseau non bloquant pour ASMAA-Club
+ * Un thread d'acceptation et quelques threads I/O (Selector) multiplexent
+ * toutes les connexions ; seules les trames complètes sont confiées au pool
+ * de workers. Une connexion inactive ne coûte donc qu'un petit tampon.
+ *
+ * Les clients tramés (sérialisation ou binaire) sont reconnus à la poignée de
+ * main ; ceux de l'ancien protocole (flux ObjectOutputStream continu) sont
+ * rendus à un ClientHandler bloquant.
+ */
+public class NioServer {
+    private static final int INITIAL_BUFFER_SIZE = 2048;
+    private static final int MAX_PUSH_BACKLOG = 64;
+
+    private final int port;
+    private final ReservationManager reservationManager;
+    private final ExecutorService workerPool;
+    private final ExecutorService legacyPool;
+    private final IoLoop[] ioLoops;
+
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private volatile boolean running;
+    private int nextLoop;
+
+    public NioServer(int port, ReservationManager manager, int ioThreads,
+                     ExecutorService workerPool, ExecutorService legacyPool) {
+        this.port = port;
+        this.reservationManager = manager;
+        this.workerPool = workerPool;
+        this.legacyPool = legacyPool;
+        this.ioLoops = new IoLoop[ioThreads];
+    }
+
+    /**
+     * Démarre les threads I/O puis la boucle d'acceptation (bloquant)
+     */
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+
+        acceptSelector = Selector.open();
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        for (int i = 0; i < ioLoops.length; i++) {
+            ioLoops[i] = new IoLoop();
+            Thread thread = new Thread(ioLoops[i], "nio-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        running = true;
+        log("Frontal NIO démarré sur le port " + port + " (" + ioLoops.length + " threads I/O)");
+
+        while (running) {
+            acceptSelector.select();
+            if (!running) {
+                break;
+            }
+            acceptSelector.selectedKeys().clear();
+
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+
+                IoLoop loop = ioLoops[Math.floorMod(nextLoop++, ioLoops.length)];
+                loop.register(new Connection(channel, loop));
+            }
+        }
+    }
+
+    /**
+     * Arrête l'acceptation et ferme toutes les connexions
+     */
+    public void shutdown() {
+        running = false;
+
+        try {
+            if (acceptSelector != null) {
+                acceptSelector.wakeup();
+            }
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            warn("Erreur lors de l'arrêt du frontal NIO: " + e.getMessage());
+        }
+
+        for (IoLoop loop : ioLoops) {
+            if (loop != null) {
+                loop.stop();
+            }
+        }
+    }
+
+    /**
+     * Thread I/O : lit les trames et vide les files d'écriture de ses connexions
+     */
+    private class IoLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final List<Connection> handoffs = new ArrayList<>();
+        private volatile boolean active = true;
+
+        IoLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void register(Connection connection) {
+            execute(() -> {
+                try {
+                    connection.key = connection.channel.register(
+                            selector, SelectionKey.OP_READ, connection);
+                } catch (ClosedChannelException e) {
+                    connection.close();
+                }
+            });
+        }
+
+        void requestWrite(Connection connection) {
+            execute(() -> {
+                if (connection.key != null && connection.key.isValid()) {
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            });
+        }
+
+        void handOff(Connection connection) {
+            handoffs.add(connection);
+        }
+
+        void stop() {
+            active = false;
+            selector.wakeup();
+        }
+
+        private void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (active) {
+                try {
+                    selector.select();
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.onWritable();
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            connection.close();
+                        }
+                    }
+
+                    if (!handoffs.isEmpty()) {
+                        completeHandoffs();
+                    }
+
+                } catch (IOException e) {
+                    warn("Erreur dans la boucle I/O: " + e.getMessage());
+                }
+            }
+
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Ignorer
+            }
+        }
+
+        /**
+         * Rend les connexions ancien protocole à un ClientHandler bloquant
+         */
+        private void completeHandoffs() throws IOException {
+            for (Connection connection : handoffs) {
+                connection.key.cancel();
+            }
+            // Désenregistrer effectivement les canaux avant de les repasser en mode bloquant
+            selector.selectNow();
+
+            for (Connection connection : handoffs) {
+                try {
+                    connection.channel.configureBlocking(true);
+                    InputStream in = new SequenceInputStream(
+                            new ByteArrayInputStream(connection.prefetched),
+                            connection.channel.socket().getInputStream());
+                    legacyPool.execute(new ClientHandler(
+                            connection.channel.socket(), in, reservationManager));
+                } catch (IOException | RejectedExecutionException e) {
+                    connection.close();
+                }
+            }
+            handoffs.clear();
+        }
+    }
+
+    /**
+     * État d'une connexion non bloquante
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final IoLoop loop;
+        private final ClientHandler handler;
+        private final Queue<byte[]> inbound = new ConcurrentLinkedQueue<>();
+        private final Deque<ByteBuffer> writeQueue = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private SelectionKey key;
+        private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private boolean framed;
+        private byte[] prefetched;
+        private volatile boolean closed;
+
+        Connection(SocketChannel channel, IoLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            this.handler = new ClientHandler(channel.socket(), reservationManager);
+        }
+
+        /**
+         * Accumule les octets reçus et extrait les trames complètes
+         */
+        void onReadable() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+
+            if (!framed) {
+                if (readBuffer.remaining() < 4) {
+                    readBuffer.compact();
+                    return;
+                }
+                int magic = readBuffer.getInt(readBuffer.position());
+                if (magic == FrameUtil.MAGIC_BINARY) {
+                    // Poignée de main binaire : magic + version demandée
+                    if (readBuffer.remaining() < 8) {
+                        readBuffer.compact();
+                        return;
+                    }
+                    readBuffer.getInt();
+                    int accepted = handler.negotiateBinary(readBuffer.getInt());
+                    enqueue(ByteBuffer.allocate(4).putInt(accepted).flip());
+                    if (accepted == 0) {
+                        close();
+                        return;
+                    }
+                    handler.setPushSink(this::push);
+                } else if (magic == FrameUtil.MAGIC_FRAMED) {
+                    readBuffer.getInt();
+                } else {
+                    prefetched = new byte[readBuffer.remaining()];
+                    readBuffer.get(prefetched);
+                    loop.handOff(this);
+                    return;
+                }
+                framed = true;
+            }
+
+            int needed = 0;
+            while (readBuffer.remaining() >= 4) {
+                int length = readBuffer.getInt(readBuffer.position());
+                FrameUtil.checkLength(length);
+
+                if (readBuffer.remaining() < 4 + length) {
+                    needed = 4 + length;
+                    break;
+                }
+
+                readBuffer.getInt();
+                byte[] payload = new byte[length];
+                readBuffer.get(payload);
+                inbound.add(payload);
+            }
+
+            if (needed > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(needed);
+                larger.put(readBuffer);
+                readBuffer = larger;
+            } else if (!readBuffer.hasRemaining() && readBuffer.capacity() > INITIAL_BUFFER_SIZE) {
+                // Libérer le tampon agrandi pour une grosse trame
+                readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+            } else {
+                readBuffer.compact();
+            }
+
+            schedule();
+        }
+
+        void onWritable() throws IOException {
+            synchronized (writeQueue) {
+                flushWrites();
+                if (writeQueue.isEmpty()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            }
+        }
+
+        /**
+         * Confie les trames en attente au pool, une seule tâche à la fois
+         * par connexion pour conserver l'ordre des requêtes
+         */
+        private void schedule() {
+            if (!inbound.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    workerPool.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                byte[] payload;
+                while (!closed && (payload = inbound.poll()) != null) {
+                    byte[] response = handler.handleFrame(payload);
+                    if (response == null) {
+                        close();
+                        return;
+                    }
+                    send(response);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Fermer plutôt que d'abandonner la requête : le client voit la
+                // connexion tomber au lieu d'attendre une réponse qui ne viendra pas
+                warn("Erreur de traitement: " + e);
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            // Une trame a pu arriver entre le dernier poll() et la remise à zéro
+            schedule();
+        }
+
+        private void send(byte[] payload) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+            buffer.putInt(payload.length).put(payload).flip();
+            enqueue(buffer);
+        }
+
+        /**
+         * Trame poussée par l'AvailabilityFeed ; refusée si le client ne lit
+         * plus (trop de trames en attente d'écriture)
+         */
+        private boolean push(byte[] payload) throws IOException {
+            synchronized (writeQueue) {
+                if (closed || writeQueue.size() >= MAX_PUSH_BACKLOG) {
+                    return false;
+                }
+                send(payload);
+                return true;
+            }
+        }
+
+        private void enqueue(ByteBuffer buffer) throws IOException {
+            synchronized (writeQueue) {
+                writeQueue.add(buffer);
+                if (writeQueue.size() == 1) {
+                    flushWrites();
+                    if (!writeQueue.isEmpty()) {
+                        loop.requestWrite(this);
+                    }
+                }
+            }
+        }
+
+        private void flushWrites() throws IOException {
+            ByteBuffer head;
+            while ((head = writeQueue.peek()) != null) {
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    return;
+                }
+                writeQueue.poll();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (key != null) {
+                key.cancel();
+            }
+            handler.disconnect();
+        }
+    }
+
+    private static void log(String message) {
+        ServerLog.info("NioServer", message);
+    }
+
+    private static void warn(String message) {
+        ServerLog.warn("NioServer", message);
+    }
+}
@@ -3,62 +3,171 @@
 // ReservationManager.java
 package asmaa.server;
 
+import asmaa.model.DisponibiliteGrid;
 import asmaa.model.Reservation;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Gestionnaire de réservations avec synchronisation thread-safe
  * Empêche les conflits de réservation concurrente
+ *
+ * Les disponibilités sont lues dans un index mémoire (AvailabilityIndex)
+ * chargé à la demande depuis la table reservations, tenu à jour à chaque
+ * création/annulation et recalé périodiquement sur la base pour prendre en
+ * compte les modifications faites hors du serveur.
+ * -Dasmaa.availability.index=false revient à la procédure stockée.
+ *
+ * Les insertions passent par un ReservationWriter qui regroupe les
+ * réservations concurrentes (tous terrains) en un seul commit ;
+ * -Dasmaa.reservation.groupCommit=false revient à un commit par réservation.
+ *
+ * Avec l'index, la création est optimiste : les heures demandées sont
+ * réclamées par compare-and-set dans SlotClaims, sans verrou, puis la
+ * réservation est écrite et la réclamation confirmée ou rendue selon le
+ * résultat. Deux réservations d'un même terrain à des heures différentes ne
+ * s'attendent plus. -Dasmaa.reservation.optimistic=false revient au verrou
+ * de la journée tenu jusqu'au commit.
+ *
+ * Chaque création, annulation ou recalage signale la journée du terrain à
+ * l'AvailabilityFeed, qui pousse le nouveau masque aux sessions abonnées.
  */
 public class ReservationManager {
 
-    // Map de verrous par terrain pour la synchronisation
-    private final Map<Integer, ReentrantLock> terrainLocks;
+    private static final boolean USE_INDEX =
+            Boolean.parseBoolean(System.getProperty("asmaa.availability.index", "true"));
+    private static final long RECONCILE_SECONDS = Long.getLong("asmaa.availability.reconcileSec", 60L);
+    private static final long IDLE_EVICT_MS = 10 * 60 * 1000;
+    private static final boolean GROUP_COMMIT =
+            Boolean.parseBoolean(System.getProperty("asmaa.reservation.groupCommit", "true"));
+    private static final long WRITE_TIMEOUT_SECONDS = 30;
+    private static final boolean OPTIMISTIC = USE_INDEX
+            && Boolean.parseBoolean(System.getProperty("asmaa.reservation.optimistic", "true"));
+
+    // Verrous par (terrain, date), en nombre fixe
+    private final StripedLocks dayLocks;
+
+    private final AvailabilityIndex availabilityIndex;
+    private final SlotClaims slotClaims = new SlotClaims();
+    // Réservations dont l'écriture a dépassé le délai, par journée (verrou de la journée tenu)
+    private final Map<Long, Set<Reservation>> unconfirmed = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler;
+    private final ReservationWriter writer;
+    private final ReservationStore store;
+    private final AvailabilityFeed feed;
 
     public ReservationManager() {
-        this.terrainLocks = new HashMap<>();
+        this(ReservationStore.DATABASE);
+    }
+
+    /**
+     * Gestionnaire branché sur un autre stockage (mesures, outils)
+     */
+    public ReservationManager(ReservationStore store) {
+        this.store = store;
+        this.dayLocks = new StripedLocks();
+        this.availabilityIndex = new AvailabilityIndex();
+        this.writer = GROUP_COMMIT ? new ReservationWriter(store) : null;
+        this.feed = new AvailabilityFeed(this::freeMask);
+
+        if (USE_INDEX) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "availability-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reconciler.scheduleWithFixedDelay(this::reconcile,
+                    RECONCILE_SECONDS, RECONCILE_SECONDS, TimeUnit.SECONDS);
+        } else {
+            this.reconciler = null;
+        }
+    }
+
+    /**
+     * Acquiert le verrou d'une journée de terrain (à libérer par unlock())
+     */
+    private ReentrantLock lockDay(int terrainId, LocalDate date) {
+        return dayLocks.lock(AvailabilityIndex.key(terrainId, date));
+    }
+
+    /**
+     * Abonnements aux mises à jour des disponibilités
+     */
+    public AvailabilityFeed getAvailabilityFeed() {
+        return feed;
     }
 
     /**
-     * Obtient le verrou pour un terrain spécifique
+     * Contention des verrous de journée, pour dimensionner -Dasmaa.locks.stripes
      */
-    private ReentrantLock getLockForTerrain(int terrainId) {
-        return terrainLocks.computeIfAbsent(terrainId, k -> new ReentrantLock(true));
+    public String getLockReport() {
+        return dayLocks.getReport();
     }
 
     /**
      * Vérifie la disponibilité d'un terrain (thread-safe)
+     * Sans aller-retour en base dès que la journée est indexée
      */
     public boolean checkDisponibilite(int terrainId, LocalDate date,
                                       LocalTime heureDebut, LocalTime heureFin) {
-        ReentrantLock lock = getLockForTerrain(terrainId);
-        lock.lock();
+        if (USE_INDEX) {
+            AvailabilityIndex.DaySlots slots = availabilityIndex.get(terrainId, date);
+            if (slots == null) {
+                slots = loadDay(terrainId, date);
+            }
+            return slots != null && slots.isFree(heureDebut, heureFin);
+        }
+
+        ReentrantLock lock = lockDay(terrainId, date);
 
         try {
-            return DatabaseManager.checkDisponibilite(terrainId, date, heureDebut, heureFin);
+            return store.checkDisponibilite(terrainId, date, heureDebut, heureFin);
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Issue d'une création de réservation
+     */
+    public enum Creation {
+        /** Réservation validée en base */
+        CONFIRMEE,
+        /** Créneau pris, ou écriture refusée par la base */
+        REFUSEE,
+        /** Écriture toujours en cours après le délai : la réservation peut encore aboutir */
+        EN_VALIDATION
+    }
+
     /**
      * Crée une réservation de manière thread-safe
      * Empêche les conflits de réservation concurrente
      */
-    public boolean createReservation(Reservation reservation) {
+    public Creation createReservation(Reservation reservation) {
+        if (OPTIMISTIC) {
+            return createReservationOptimistic(reservation);
+        }
+
         int terrainId = reservation.getTerrainId();
-        ReentrantLock lock = getLockForTerrain(terrainId);
 
-        // Acquérir le verrou pour ce terrain
-        lock.lock();
+        // Acquérir le verrou de cette journée du terrain
+        ReentrantLock lock = lockDay(terrainId, reservation.getDateReservation());
 
         try {
             // Vérifier à nouveau la disponibilité (double-check pattern)
-            boolean disponible = DatabaseManager.checkDisponibilite(
+            boolean disponible = isAvailableLocked(
                     terrainId,
                     reservation.getDateReservation(),
                     reservation.getHeureDebut(),
@@ -66,19 +175,30 @@ public class ReservationManager {
             );
 
             if (!disponible) {
-                return false;
+                return Creation.REFUSEE;
             }
 
-            // Créer la réservation
-            boolean success = DatabaseManager.createReservation(reservation);
+            // Créer la réservation (durable au retour)
+            CompletableFuture<Boolean> write = persist(reservation);
+            if (!write.isDone()) {
+                // Issue inconnue : les heures restent prises jusqu'à la fin de l'écriture
+                long key = AvailabilityIndex.key(terrainId, reservation.getDateReservation());
+                unconfirmed.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(reservation);
+                write.thenAcceptAsync(created -> confirmLocked(key, reservation, created));
+                return Creation.EN_VALIDATION;
+            }
+            boolean success = write.join();
 
             if (success) {
-                log("Réservation créée: Terrain #" + terrainId + " le " +
-                        reservation.getDateReservation() + " de " +
-                        reservation.getHeureDebut() + " à " + reservation.getHeureFin());
+                availabilityIndex.add(reservation);
+                StatsCounters.onReservationCreated(reservation);
+                feed.changed(terrainId, reservation.getDateReservation());
+                ServerLog.debug("ReservationManager", "Réservation créée", "terrain", terrainId,
+                        "date", reservation.getDateReservation(), "debut", reservation.getHeureDebut(),
+                        "fin", reservation.getHeureFin());
             }
 
-            return success;
+            return success ? Creation.CONFIRMEE : Creation.REFUSEE;
 
         } finally {
             // Toujours libérer le verrou
@@ -86,10 +206,417 @@ public class ReservationManager {
         }
     }
 
+    /**
+     * Création sans verrou : réclamation des heures, écriture, puis
+     * confirmation (ou restitution si l'écriture échoue)
+     */
+    private Creation createReservationOptimistic(Reservation reservation) {
+        int terrainId = reservation.getTerrainId();
+        int mask = SlotClaims.hourMask(reservation.getHeureDebut(), reservation.getHeureFin());
+        if (mask == 0) {
+            return Creation.REFUSEE;
+        }
+
+        AtomicLong claims;
+        while (true) {
+            claims = claimsFor(terrainId, reservation.getDateReservation());
+            if (claims == null) {
+                return Creation.REFUSEE;  // Journée illisible en base
+            }
+            if (SlotClaims.claim(claims, mask)) {
+                break;
+            }
+            if (!SlotClaims.isEvicted(claims)) {
+                return Creation.REFUSEE;  // Créneau déjà pris
+            }
+            // Journée oubliée par le recalage pendant la réclamation : la recharger
+        }
+
+        boolean success = false;
+        boolean pending = false;
+        try {
+            CompletableFuture<Boolean> write = persist(reservation);
+            if (!write.isDone()) {
+                // Issue inconnue : la réclamation reste en cours jusqu'à la fin de l'écriture
+                pending = true;
+                AtomicLong dayClaims = claims;
+                write.thenAccept(created -> confirmClaimed(dayClaims, mask, reservation, created));
+                return Creation.EN_VALIDATION;
+            }
+            success = write.join();
+            if (success) {
+                availabilityIndex.add(reservation);
+                StatsCounters.onReservationCreated(reservation);
+                ServerLog.debug("ReservationManager", "Réservation créée", "terrain", terrainId,
+                        "date", reservation.getDateReservation(), "debut", reservation.getHeureDebut(),
+                        "fin", reservation.getHeureFin());
+            }
+        } finally {
+            // Après l'ajout à l'index : le recalage ne peut pas perdre la réservation
+            if (success) {
+                SlotClaims.commit(claims, mask);
+            } else if (!pending) {
+                SlotClaims.release(claims, mask);
+            }
+        }
+        if (success) {
+            feed.changed(terrainId, reservation.getDateReservation());
+        }
+        return success ? Creation.CONFIRMEE : Creation.REFUSEE;
+    }
+
+    /**
+     * Fin d'une écriture qui avait dépassé le délai (création sous verrou)
+     * Hors du thread d'écriture : le verrou de la journée peut être tenu par
+     * une création qui attend elle-même un lot.
+     */
+    private void confirmLocked(long key, Reservation reservation, boolean created) {
+        ReentrantLock lock = dayLocks.lock(key);
+
+        try {
+            if (created) {
+                onLateCreation(reservation);
+            }
+            Set<Reservation> waiting = unconfirmed.get(key);
+            if (waiting != null && waiting.remove(reservation) && waiting.isEmpty()) {
+                unconfirmed.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (created) {
+            feed.changed(reservation.getTerrainId(), reservation.getDateReservation());
+        }
+    }
+
+    /**
+     * Fin d'une écriture qui avait dépassé le délai (création optimiste)
+     */
+    private void confirmClaimed(AtomicLong claims, int mask, Reservation reservation, boolean created) {
+        if (!created) {
+            SlotClaims.release(claims, mask);
+            return;
+        }
+        onLateCreation(reservation);
+        SlotClaims.commit(claims, mask);
+        feed.changed(reservation.getTerrainId(), reservation.getDateReservation());
+    }
+
+    private void onLateCreation(Reservation reservation) {
+        // La journée a pu être relue en base entre-temps, réservation comprise
+        if (availabilityIndex.keyOf(reservation.getId()) == null) {
+            availabilityIndex.add(reservation);
+        }
+        StatsCounters.onReservationCreated(reservation);
+        warn("Réservation " + reservation.getId() + " validée après le délai d'écriture");
+    }
+
+    /**
+     * Heures occupées d'une journée, initialisées depuis l'index au premier accès
+     */
+    private AtomicLong claimsFor(int terrainId, LocalDate date) {
+        long key = AvailabilityIndex.key(terrainId, date);
+        AtomicLong claims = slotClaims.get(key);
+        if (claims != null) {
+            return claims;
+        }
+
+        ReentrantLock lock = lockDay(terrainId, date);
+
+        try {
+            claims = slotClaims.get(key);
+            if (claims != null) {
+                return claims;
+            }
+            AvailabilityIndex.DaySlots slots = availabilityIndex.get(terrainId, date);
+            if (slots == null) {
+                slots = readDay(terrainId, date);
+            }
+            return slots != null ? slotClaims.init(key, slots.hourMask()) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Annule une réservation et libère son créneau dans l'index
+     */
+    public boolean annulerReservation(int reservationId) {
+        Long key = availabilityIndex.keyOf(reservationId);
+        if (key == null) {
+            // Journée non indexée : seuls les compteurs et les abonnés sont à prévenir
+            Reservation previous = cancelInDatabase(reservationId);
+            if (previous == null) {
+                return false;
+            }
+            feed.changed(previous.getTerrainId(), previous.getDateReservation());
+            return true;
+        }
+
+        ReentrantLock lock = dayLocks.lock(key);
+
+        try {
+            boolean success = cancelInDatabase(reservationId) != null;
+            if (success) {
+                int cancelledHours = availabilityIndex.hourMaskOf(reservationId);
+                availabilityIndex.remove(reservationId);
+
+                // Heures libérées, sauf celles qu'un autre créneau de la journée touche encore
+                AtomicLong claims = slotClaims.get(key);
+                if (claims != null) {
+                    SlotClaims.clearCommitted(claims, cancelledHours & ~availabilityIndex.hourMask(key));
+                }
+                feed.changed(AvailabilityIndex.terrainOf(key), AvailabilityIndex.dateOf(key));
+            }
+            return success;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Reservation cancelInDatabase(int reservationId) {
+        Reservation previous = store.annulerReservationDetaillee(reservationId);
+        if (previous != null) {
+            StatsCounters.onReservationCancelled(previous);
+        }
+        return previous;
+    }
+
+    /**
+     * Grille des créneaux horaires libres de tous les terrains d'un centre
+     * Une seule requête en base ; une journée déjà indexée est lue dans l'index,
+     * qui reflète aussi les réservations créées depuis la requête.
+     */
+    public DisponibiliteGrid getDisponibiliteGrid(int centreId, int sportId, LocalDate date) {
+        Map<Integer, List<Reservation>> slotsByTerrain =
+                store.getReservationSlotsByCentre(centreId, sportId, date);
+        if (slotsByTerrain == null) {
+            return null;
+        }
+
+        int[] terrainIds = new int[slotsByTerrain.size()];
+        int[] freeMasks = new int[slotsByTerrain.size()];
+        int i = 0;
+
+        for (Map.Entry<Integer, List<Reservation>> entry : slotsByTerrain.entrySet()) {
+            int terrainId = entry.getKey();
+            AvailabilityIndex.DaySlots slots = USE_INDEX ? availabilityIndex.get(terrainId, date) : null;
+            if (slots == null) {
+                // Instantané local : ne pas l'indexer, une réservation a pu être créée entre-temps
+                slots = AvailabilityIndex.DaySlots.of(entry.getValue());
+            }
+
+            terrainIds[i] = terrainId;
+            freeMasks[i] = freeMask(slots);
+            i++;
+        }
+
+        return new DisponibiliteGrid(date, terrainIds, freeMasks);
+    }
+
+    /**
+     * Masque des créneaux libres d'une journée de terrain (-1 si illisible en base)
+     */
+    int freeMask(int terrainId, LocalDate date) {
+        AvailabilityIndex.DaySlots slots;
+        if (USE_INDEX) {
+            slots = availabilityIndex.get(terrainId, date);
+            if (slots == null) {
+                slots = loadDay(terrainId, date);
+            }
+        } else {
+            List<Reservation> reservations = store.getReservationSlots(terrainId, date);
+            slots = reservations != null ? AvailabilityIndex.DaySlots.of(reservations) : null;
+        }
+        return slots != null ? freeMask(slots) : -1;
+    }
+
+    private static int freeMask(AvailabilityIndex.DaySlots slots) {
+        int mask = 0;
+        for (int slot = 0; slot < DisponibiliteGrid.SLOT_COUNT; slot++) {
+            LocalTime debut = LocalTime.of(DisponibiliteGrid.FIRST_HOUR + slot, 0);
+            if (slots.isFree(debut, debut.plusHours(1))) {
+                mask |= 1 << slot;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Arrête le recalage périodique de l'index et l'envoi des mises à jour
+     */
+    public void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+        feed.shutdown();
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Écrit la réservation en base, dans un lot groupé si possible
+     * Le verrou de la journée reste tenu jusqu'au commit : la place dans le lot
+     * ne coûte qu'une attente, les autres terrains écrivant dans le même commit.
+     * Le futur rendu n'est pas encore complété si l'écriture dépasse le délai :
+     * le lot peut encore aboutir, les heures ne doivent pas être rendues avant.
+     */
+    private CompletableFuture<Boolean> persist(Reservation reservation) {
+        if (writer == null) {
+            return CompletableFuture.completedFuture(store.createReservation(reservation));
+        }
+
+        CompletableFuture<Boolean> write = writer.submit(reservation);
+        try {
+            write.get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            warn("Attente de l'écriture interrompue, réservation non confirmée");
+        } catch (ExecutionException e) {
+            warn("Écriture de la réservation échouée: " + e.getCause());
+            return CompletableFuture.completedFuture(false);
+        } catch (TimeoutException e) {
+            warn("Écriture de la réservation non confirmée après " + WRITE_TIMEOUT_SECONDS + " s");
+        }
+        return write;
+    }
+
+    /**
+     * Disponibilité vue sous le verrou de la journée
+     */
+    private boolean isAvailableLocked(int terrainId, LocalDate date,
+                                      LocalTime heureDebut, LocalTime heureFin) {
+        if (!USE_INDEX) {
+            return store.checkDisponibilite(terrainId, date, heureDebut, heureFin)
+                    && !overlapsUnconfirmed(terrainId, date, heureDebut, heureFin);
+        }
+
+        AvailabilityIndex.DaySlots slots = availabilityIndex.get(terrainId, date);
+        if (slots == null) {
+            slots = readDay(terrainId, date);
+        }
+        return slots != null && slots.isFree(heureDebut, heureFin)
+                && !overlapsUnconfirmed(terrainId, date, heureDebut, heureFin);
+    }
+
+    /**
+     * Le créneau chevauche-t-il une écriture dont l'issue n'est pas encore connue ?
+     */
+    private boolean overlapsUnconfirmed(int terrainId, LocalDate date,
+                                        LocalTime heureDebut, LocalTime heureFin) {
+        Set<Reservation> waiting = unconfirmed.get(AvailabilityIndex.key(terrainId, date));
+        if (waiting == null) {
+            return false;
+        }
+        for (Reservation other : waiting) {
+            if (other.getHeureDebut().isBefore(heureFin) && heureDebut.isBefore(other.getHeureFin())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Charge une journée dans l'index (une seule lecture en base par terrain)
+     */
+    private AvailabilityIndex.DaySlots loadDay(int terrainId, LocalDate date) {
+        ReentrantLock lock = lockDay(terrainId, date);
+
+        try {
+            AvailabilityIndex.DaySlots slots = availabilityIndex.get(terrainId, date);
+            return slots != null ? slots : readDay(terrainId, date);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lit une journée en base et la place dans l'index (verrou de la journée tenu)
+     */
+    private AvailabilityIndex.DaySlots readDay(int terrainId, LocalDate date) {
+        List<Reservation> reservations = store.getReservationSlots(terrainId, date);
+        if (reservations == null) {
+            return null;
+        }
+        return availabilityIndex.load(terrainId, date, reservations);
+    }
+
+    /**
+     * Recale les journées indexées sur la base ; oublie les journées passées
+     * ou inutilisées depuis longtemps
+     */
+    private void reconcile() {
+        long now = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        int reloaded = 0;
+
+        try {
+            for (Map.Entry<Long, Long> entry : availabilityIndex.loadedDays().entrySet()) {
+                long key = entry.getKey();
+                int terrainId = AvailabilityIndex.terrainOf(key);
+                LocalDate date = AvailabilityIndex.dateOf(key);
+
+                ReentrantLock lock = dayLocks.lock(key);
+                try {
+                    if (date.isBefore(today) || now - entry.getValue() > IDLE_EVICT_MS) {
+                        // Une journée dont des heures sont en cours de réclamation est gardée
+                        if (slotClaims.evict(key)) {
+                            availabilityIndex.evict(key);
+                        }
+                    } else if (reloadDay(key, terrainId, date)) {
+                        reloaded++;
+                        feed.changed(terrainId, date);  // Modifiée hors du serveur ?
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            warn("Erreur lors du recalage de l'index: " + e.getMessage());
+        }
+
+        if (reloaded > 0) {
+            log("Index des disponibilités recalé (" + reloaded + " journées)");
+        }
+    }
+
+    /**
+     * Relit une journée en base (verrou de la journée tenu)
+     * Si des heures y sont réclamées sans verrou, l'index n'est remplacé que
+     * si aucune réclamation n'a eu lieu depuis le début de la lecture.
+     */
+    private boolean reloadDay(long key, int terrainId, LocalDate date) {
+        AtomicLong claims = slotClaims.get(key);
+        if (claims == null) {
+            if (readDay(terrainId, date) == null) {
+                availabilityIndex.evict(key);
+                return false;
+            }
+            return true;
+        }
+
+        long before = claims.get();
+        List<Reservation> reservations = store.getReservationSlots(terrainId, date);
+        if (reservations == null || SlotClaims.hasPending(before)) {
+            return false;  // Recalé au passage suivant
+        }
+
+        if (!availabilityIndex.loadIf(terrainId, date, reservations, () -> claims.get() == before)) {
+            return false;
+        }
+        SlotClaims.replaceCommitted(claims, before, AvailabilityIndex.DaySlots.of(reservations).hourMask());
+        return true;
+    }
+
     /**
      * Log les événements du ReservationManager
      */
     private void log(String message) {
-        System.out.println("[ReservationManager] " + message);
+        ServerLog.info("ReservationManager", message);
+    }
+
+    private void warn(String message) {
+        ServerLog.warn("ReservationManager", message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package asmaa.server;
+
+import asmaa.model.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accès aux réservations utilisé par ReservationManager et ReservationWriter
+ *
+ * En production, DATABASE délègue à DatabaseManager ; les outils de mesure
+ * (asmaa.tools) fournissent une implémentation en mémoire pour obtenir des
+ * résultats reproductibles sans serveur MySQL.
+ */
+public interface ReservationStore {
+
+    /** Implémentation MySQL (DatabaseManager) */
+    ReservationStore DATABASE = new ReservationStore() {
+        @Override
+        public boolean checkDisponibilite(int terrainId, LocalDate date, LocalTime heureDebut, LocalTime heureFin) {
+            return DatabaseManager.checkDisponibilite(terrainId, date, heureDebut, heureFin);
+        }
+
+        @Override
+        public List<Reservation> getReservationSlots(int terrainId, LocalDate date) {
+            return DatabaseManager.getReservationSlots(terrainId, date);
+        }
+
+        @Override
+        public Map<Integer, List<Reservation>> getReservationSlotsByCentre(int centreId, int sportId, LocalDate date) {
+            return DatabaseManager.getReservationSlotsByCentre(centreId, sportId, date);
+        }
+
+        @Override
+        public boolean createReservation(Reservation reservation) {
+            return DatabaseManager.createReservation(reservation);
+        }
+
+        @Override
+        public boolean createReservations(List<Reservation> batch) {
+            return DatabaseManager.createReservations(batch);
+        }
+
+        @Override
+        public Reservation annulerReservationDetaillee(int reservationId) {
+            return DatabaseManager.annulerReservationDetaillee(reservationId);
+        }
+    };
+
+    boolean checkDisponibilite(int terrainId, LocalDate date, LocalTime heureDebut, LocalTime heureFin);
+
+    /** Créneaux actifs d'une journée (null en cas d'erreur) */
+    List<Reservation> getReservationSlots(int terrainId, LocalDate date);
+
+    /** Créneaux actifs de chaque terrain d'un centre (null en cas d'erreur) */
+    Map<Integer, List<Reservation>> getReservationSlotsByCentre(int centreId, int sportId, LocalDate date);
+
+    boolean createReservation(Reservation reservation);
+
+    /** Lot écrit en une transaction, tout ou rien */
+    boolean createReservations(List<Reservation> batch);
+
+    /** Terrain, date, statut et prix avant annulation (null si échec) */
+    Reservation annulerReservationDetaillee(int reservationId);
+}
@@ -0,0 +1,203 @@
+package asmaa.server;
+
+import asmaa.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture groupée des réservations (group commit)
+ *
+ * Les réservations soumises pendant qu'un lot est en cours d'écriture forment
+ * le lot suivant : un seul thread les insère, tous terrains confondus, en deux
+ * INSERT multi-lignes et un seul commit. Le futur d'une réservation n'est
+ * complété qu'après le commit, la réservation est alors durable.
+ * Si un lot échoue, ses réservations sont rejouées une à une pour que la
+ * ligne fautive n'entraîne pas les autres.
+ *
+ * -Dasmaa.writer.maxBatch (64) : taille maximale d'un lot
+ * -Dasmaa.writer.lingerMs (0)  : attente supplémentaire pour grossir un lot
+ */
+public class ReservationWriter {
+
+    private static final int MAX_BATCH = Integer.getInteger("asmaa.writer.maxBatch", 64);
+    private static final long LINGER_MS = Long.getLong("asmaa.writer.lingerMs", 0L);
+    private static final long SLOW_BATCH_MS = 200;
+
+    // Marque de fin déposée dans la file par shutdown()
+    private static final PendingReservation STOP = new PendingReservation(null);
+
+    private final BlockingQueue<PendingReservation> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    // Garde running et la file : rien n'est ajouté après la marque de fin
+    private final Object submitLock = new Object();
+    private boolean running = true;
+
+    // Statistiques des lots (sous le moniteur de l'instance)
+    private long batches;
+    private long rows;
+    private long totalBatchMs;
+    private long maxBatchMs;
+    private int maxBatchSize;
+
+    private final ReservationStore store;
+
+    public ReservationWriter() {
+        this(ReservationStore.DATABASE);
+    }
+
+    public ReservationWriter(ReservationStore store) {
+        this.store = store;
+        writerThread = new Thread(this::writeLoop, "reservation-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Met une réservation en file ; le futur vaut true une fois la
+     * réservation validée en base (id renseigné), false en cas d'échec
+     */
+    public CompletableFuture<Boolean> submit(Reservation reservation) {
+        PendingReservation pending = new PendingReservation(reservation);
+        synchronized (submitLock) {
+            if (running) {
+                queue.add(pending);
+                return pending.future;
+            }
+        }
+        pending.future.complete(false);
+        return pending.future;
+    }
+
+    /**
+     * Termine les lots en attente puis arrête le thread d'écriture
+     */
+    public void shutdown() {
+        synchronized (submitLock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            queue.add(STOP);
+        }
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writerThread.isAlive()) {
+            // Thread arrêté sur une erreur : personne n'écrira plus ces réservations
+            PendingReservation pending;
+            while ((pending = queue.poll()) != null) {
+                pending.future.complete(false);
+            }
+        }
+        log(getReport());
+    }
+
+    /**
+     * Résumé des lots écrits depuis le démarrage
+     */
+    public synchronized String getReport() {
+        return batches + " lots, " + rows + " réservations, " +
+                "moyenne " + (batches == 0 ? 0 : totalBatchMs / batches) + " ms/lot, " +
+                "max " + maxBatchMs + " ms, plus gros lot " + maxBatchSize;
+    }
+
+    private void writeLoop() {
+        List<PendingReservation> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                PendingReservation first = stopping ? queue.poll() : queue.take();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                if (LINGER_MS > 0 && first != STOP) {
+                    PendingReservation next = queue.poll(LINGER_MS, TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+
+                // Après la marque de fin, la file est vidée puis le thread s'arrête
+                if (batch.remove(STOP)) {
+                    stopping = true;
+                }
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            } catch (RuntimeException e) {
+                warn("Erreur d'écriture: " + e.getMessage());
+                for (PendingReservation pending : batch) {
+                    pending.future.complete(false);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingReservation> batch) {
+        long start = System.nanoTime();
+
+        List<Reservation> reservations = new ArrayList<>(batch.size());
+        for (PendingReservation pending : batch) {
+            reservations.add(pending.reservation);
+        }
+
+        if (store.createReservations(reservations)) {
+            for (PendingReservation pending : batch) {
+                pending.future.complete(true);
+            }
+        } else {
+            // Lot refusé : chaque réservation est retentée seule
+            for (PendingReservation pending : batch) {
+                pending.future.complete(store.createReservation(pending.reservation));
+            }
+        }
+
+        record(batch.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private synchronized void record(int size, long elapsedMs) {
+        batches++;
+        rows += size;
+        totalBatchMs += elapsedMs;
+        maxBatchMs = Math.max(maxBatchMs, elapsedMs);
+        maxBatchSize = Math.max(maxBatchSize, size);
+
+        if (elapsedMs > SLOW_BATCH_MS) {
+            warn("Lot lent: " + size + " réservations en " + elapsedMs + " ms");
+        }
+    }
+
+    private void log(String message) {
+        ServerLog.info("ReservationWriter", message);
+    }
+
+    private void warn(String message) {
+        ServerLog.warn("ReservationWriter", message);
+    }
+
+    /**
+     * Réservation en attente d'écriture et futur de son client
+     */
+    private static final class PendingReservation {
+        private final Reservation reservation;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        PendingReservation(Reservation reservation) {
+            this.reservation = reservation;
+        }
+    }
+}
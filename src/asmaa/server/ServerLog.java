@@ -0,0 +1,243 @@
+package asmaa.server;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal asynchrone du serveur
+ *
+ * Les threads de traitement déposent leurs messages dans un anneau de taille
+ * fixe (réservation d'une case par compare-and-set, sans verrou) ; un seul
+ * thread "server-log" les met en forme et les écrit. Si l'anneau est plein,
+ * le message est abandonné et compté : journaliser ne bloque jamais une
+ * requête. Le nombre de messages perdus est signalé dans le journal.
+ *
+ * Chaque message porte des champs structurés, passés par paires clé/valeur
+ * (session, user, command, terrain...) et écrits sous la forme clé=valeur :
+ *   2026-01-15 18:02:11.045 INFO  [ClientHandler] Réservation créée session=12 user=amine terrain=3
+ * Les valeurs sont mises en forme par le thread d'écriture : passer des
+ * valeurs immuables (chaînes, nombres, dates), pas des objets modifiés ensuite.
+ * WARN et ERROR partent sur la sortie d'erreur, les autres sur la sortie standard.
+ *
+ * -Dasmaa.log.level (INFO)   : niveau minimal (DEBUG, INFO, WARN, ERROR)
+ * -Dasmaa.log.buffer (8192)  : nombre de messages en attente d'écriture
+ */
+public class ServerLog {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final Level THRESHOLD = Level.valueOf(
+            System.getProperty("asmaa.log.level", "INFO").toUpperCase());
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long DROP_REPORT_MS = 10_000;
+
+    private static final int capacity;
+    private static final int mask;
+    private static final Event[] events;
+    // Numéro de séquence attendu dans chaque case : pos libre, pos + 1 écrite
+    private static final AtomicLongArray sequences;
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    private static volatile long head;
+    private static volatile boolean writerParked;
+    private static final Thread writer;
+
+    static {
+        int size = 1;
+        while (size < Integer.getInteger("asmaa.log.buffer", 8192)) {
+            size <<= 1;
+        }
+        capacity = size;
+        mask = size - 1;
+        events = new Event[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+
+        writer = new Thread(ServerLog::writeLoop, "server-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private ServerLog() {}
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    public static void debug(String source, String message, Object... fields) {
+        log(Level.DEBUG, source, message, fields);
+    }
+
+    public static void info(String source, String message, Object... fields) {
+        log(Level.INFO, source, message, fields);
+    }
+
+    public static void warn(String source, String message, Object... fields) {
+        log(Level.WARN, source, message, fields);
+    }
+
+    public static void error(String source, String message, Object... fields) {
+        log(Level.ERROR, source, message, fields);
+    }
+
+    /**
+     * Dépose un message sans attendre ; faux s'il a été filtré ou abandonné
+     */
+    public static boolean log(Level level, String source, String message, Object... fields) {
+        if (!isEnabled(level)) {
+            return false;
+        }
+
+        long position = tail.get();
+        while (true) {
+            long sequence = sequences.get((int) (position & mask));
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();  // Anneau plein : le writer a un tour de retard
+                return false;
+            } else {
+                position = tail.get();  // Case prise par un autre thread entre-temps
+            }
+        }
+
+        int index = (int) (position & mask);
+        Event event = events[index];
+        event.timeMillis = System.currentTimeMillis();
+        event.level = level;
+        event.source = source;
+        event.message = message;
+        event.fields = fields;
+        sequences.set(index, position + 1);  // Publication : la case est lisible
+
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Attend que les messages déjà déposés soient écrits (arrêt du serveur)
+     */
+    public static void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (head < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        System.out.flush();
+        System.err.flush();
+    }
+
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    public static long getWritten() {
+        return written.get();
+    }
+
+    private static void writeLoop() {
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        long lastDropReport = System.currentTimeMillis();
+
+        while (true) {
+            long position = head;
+            int index = (int) (position & mask);
+            boolean empty = sequences.get(index) != position + 1;
+
+            // Pertes signalées au plus toutes les DROP_REPORT_MS, même si l'anneau ne se vide jamais
+            if (empty || (position & 1023) == 0) {
+                long drops = dropped.get();
+                long now = System.currentTimeMillis();
+                if (drops != reportedDrops && now - lastDropReport >= DROP_REPORT_MS) {
+                    System.err.println(format(line, now, Level.WARN, "ServerLog",
+                            "Messages perdus (anneau plein)", new Object[]{"perdus", drops - reportedDrops}));
+                    reportedDrops = drops;
+                    lastDropReport = now;
+                }
+            }
+
+            if (empty) {
+                // Anneau vide : vider les tampons puis attendre un message
+                System.out.flush();
+                System.err.flush();
+                writerParked = true;
+                if (sequences.get(index) != position + 1) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+                continue;
+            }
+
+            Event event = events[index];
+            PrintStream out = event.level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+            String text = format(line, event.timeMillis, event.level, event.source, event.message, event.fields);
+            event.source = null;
+            event.message = null;
+            event.fields = null;
+            sequences.set(index, position + capacity);  // Case rendue pour le tour suivant
+            head = position + 1;
+
+            out.println(text);
+            written.incrementAndGet();
+        }
+    }
+
+    private static String format(StringBuilder line, long timeMillis, Level level, String source,
+                                 String message, Object[] fields) {
+        line.setLength(0);
+        TIMESTAMP.formatTo(Instant.ofEpochMilli(timeMillis), line);
+        line.append(' ').append(level);
+        if (level.name().length() < 5) {
+            line.append(' ');
+        }
+        line.append(" [").append(source).append("] ").append(message);
+
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                Object value = fields[i + 1];
+                if (value == null) {
+                    continue;
+                }
+                String text = String.valueOf(value);
+                line.append(' ').append(fields[i]).append('=');
+                if (text.indexOf(' ') >= 0) {
+                    line.append('"').append(text).append('"');
+                } else {
+                    line.append(text);
+                }
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Case de l'anneau, réutilisée d'un tour à l'autre
+     */
+    private static final class Event {
+        private long timeMillis;
+        private Level level;
+        private String source;
+        private String message;
+        private Object[] fields;
+    }
+}
@@ -1,63 +1,120 @@
 package asmaa.server;
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.*;
 import java.util.concurrent.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Serveur principal multithread pour ASMAA-Club
  * Gère les connexions clients et coordonne les réservations
+ *
+ * Mode d'exécution (-Dasmaa.server.mode) :
+ *  - threads : un thread du pool par connexion (par défaut)
+ *  - nio     : frontal Selector non bloquant + pool de workers (NioServer)
+ *  - virtual : un thread virtuel par connexion (Java 21+), le code bloquant de
+ *              ClientHandler est conservé ; les accès JDBC restent bornés par
+ *              -Dasmaa.db.maxConcurrent
  */
 public class ServerMain {
     private static final int PORT = 5000;
     private static final int MAX_CLIENTS = 100;
 
+    private static final int DB_MAX_CONCURRENT = Integer.getInteger("asmaa.db.maxConcurrent", 20);
+    private static final int IO_THREADS = Integer.getInteger("asmaa.server.ioThreads", 2);
+    private static final int WORKER_THREADS = Integer.getInteger("asmaa.server.workers",
+            Runtime.getRuntime().availableProcessors() * 2);
+
+    private final int port;
+    private final String mode;
     private ServerSocket serverSocket;
     private ExecutorService threadPool;
+    private ExecutorService workerPool;
+    private Semaphore dbPermits;
+    private NioServer nioServer;
     private ReservationManager reservationManager;
-    private boolean running;
+    private volatile boolean running;
 
     public ServerMain() {
-        this.threadPool = Executors.newFixedThreadPool(MAX_CLIENTS);
+        this(PORT, System.getProperty("asmaa.server.mode", "threads"));
+    }
+
+    public ServerMain(int port, String mode) {
+        this.port = port;
+        this.mode = mode;
         this.reservationManager = new ReservationManager();
         this.running = false;
+
+        if ("virtual".equals(mode)) {
+            this.threadPool = newVirtualThreadExecutor();
+            this.dbPermits = new Semaphore(DB_MAX_CONCURRENT, true);
+        } else {
+            this.threadPool = Executors.newFixedThreadPool(MAX_CLIENTS);
+        }
     }
 
     /**
      * Démarre le serveur
      */
     public void start() {
+        if ("nio".equals(mode)) {
+            startNio();
+            return;
+        }
+
         try {
-            serverSocket = new ServerSocket(PORT);
+            serverSocket = new ServerSocket(port);
             running = true;
 
-            log("Serveur ASMAA-Club démarré sur le port " + PORT);
+            log("Serveur ASMAA-Club démarré sur le port " + port + " (mode " + mode + ")");
             log("En attente de connexions...");
 
             // Boucle principale d'acceptation des clients
             while (running) {
                 try {
                     Socket clientSocket = serverSocket.accept();
-                    log("Nouvelle connexion: " + clientSocket.getInetAddress());
+                    clientSocket.setTcpNoDelay(true);
+                    ServerLog.debug("ServerMain", "Nouvelle connexion",
+                            "adresse", clientSocket.getInetAddress().getHostAddress());
 
                     // Créer un handler pour ce client et l'exécuter dans le pool
                     ClientHandler handler = new ClientHandler(
                             clientSocket,
-                            reservationManager
+                            reservationManager,
+                            dbPermits
                     );
                     threadPool.execute(handler);
 
                 } catch (IOException e) {
                     if (running) {
-                        log("Erreur lors de l'acceptation d'un client: " + e.getMessage());
+                        warn("Erreur lors de l'acceptation d'un client: " + e.getMessage());
                     }
                 }
             }
 
         } catch (IOException e) {
-            log("Erreur fatale du serveur: " + e.getMessage());
+            error("Erreur fatale du serveur: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Démarre le frontal NIO : le nombre de connexions n'est plus limité par MAX_CLIENTS,
+     * qui ne borne plus que les clients de l'ancien protocole
+     */
+    private void startNio() {
+        try {
+            workerPool = Executors.newFixedThreadPool(WORKER_THREADS);
+            nioServer = new NioServer(port, reservationManager, IO_THREADS, workerPool, threadPool);
+            running = true;
+
+            log("Serveur ASMAA-Club démarré en mode NIO (" + WORKER_THREADS + " workers)");
+            nioServer.start();
+
+        } catch (IOException e) {
+            error("Erreur fatale du serveur: " + e.getMessage());
             e.printStackTrace();
         } finally {
             shutdown();
@@ -75,26 +132,88 @@ public class ServerMain {
                 serverSocket.close();
             }
 
+            if (nioServer != null) {
+                nioServer.shutdown();
+            }
+            if (workerPool != null) {
+                workerPool.shutdown();
+            }
+
             threadPool.shutdown();
             if (!threadPool.awaitTermination(10, TimeUnit.SECONDS)) {
                 threadPool.shutdownNow();
             }
 
+            log("Verrous des réservations : " + reservationManager.getLockReport());
+            log("Mises à jour de disponibilités poussées : "
+                    + reservationManager.getAvailabilityFeed().getPushed());
+            reservationManager.shutdown();
+            StatsCounters.shutdown();
+            log("Requêtes : " + ServerMetrics.getReport());
+            ServerMetrics.shutdown();
+            log("Cache du catalogue : " + CatalogueCache.getHits() + " hits / "
+                    + CatalogueCache.getMisses() + " misses");
+            DatabaseManager.closeConnection();
             log("Serveur arrêté proprement");
+            ServerLog.flush();
 
         } catch (Exception e) {
-            log("Erreur lors de l'arrêt: " + e.getMessage());
+            warn("Erreur lors de l'arrêt: " + e.getMessage());
             threadPool.shutdownNow();
         }
     }
 
     /**
-     * Enregistre un message dans les logs avec horodatage
+     * Exécuteur "un thread virtuel par tâche" (Java 21+), obtenu par réflexion
+     * pour que le serveur reste compilable et exécutable sur un JDK plus ancien
+     * Sans threads virtuels, repli sur le pool borné du mode threads : jamais
+     * un thread système par connexion sans limite.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            warn("Threads virtuels indisponibles (Java 21+ requis), repli sur le mode threads ("
+                    + MAX_CLIENTS + " connexions au plus)");
+            return Executors.newFixedThreadPool(MAX_CLIENTS);
+        }
+    }
+
+    /**
+     * Fabrique de threads virtuels (Java 21+), obtenue par réflexion comme
+     * newVirtualThreadExecutor ; null si la JVM n'en propose pas
+     */
+    static ThreadFactory newVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Indique si le serveur accepte des connexions
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Journal asynchrone (horodatage ajouté par ServerLog)
      */
     private static void log(String message) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        System.out.println("[" + timestamp + "] " + message);
+        ServerLog.info("ServerMain", message);
+    }
+
+    private static void warn(String message) {
+        ServerLog.warn("ServerMain", message);
+    }
+
+    private static void error(String message) {
+        ServerLog.error("ServerMain", message);
     }
 
     /**
@@ -103,6 +222,11 @@ public class ServerMain {
     public static void main(String[] args) {
         // Initialiser la base de données
         DatabaseManager.initialize();
+        if (CatalogueCache.WARM_ON_STARTUP) {
+            CatalogueCache.warm();
+        }
+        StatsCounters.start();
+        ServerMetrics.start();
 
         // Créer et démarrer le serveur
         ServerMain server = new ServerMain();
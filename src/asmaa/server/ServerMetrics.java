@@ -0,0 +1,361 @@
+package asmaa.server;
+
+import asmaa.utils.LatencyHistogram;
+import asmaa.utils.Opcode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métriques du serveur : sessions, requêtes, erreurs, latences et octets
+ *
+ * Chaque commande (une par opcode) a ses compteurs et un histogramme de
+ * latence, mesurée de la réception de la commande à l'envoi de sa réponse,
+ * attente d'un permis d'accès à la base comprise. Une réponse ERROR ou une
+ * exception compte comme erreur.
+ *
+ * Exposition :
+ *  - JMX : asmaa:type=Server et asmaa:type=Command,name=<COMMANDE>
+ *  - HTTP texte sur 127.0.0.1, GET /metrics, au format d'exposition Prometheus
+ *    -Dasmaa.metrics.port (9100) : 0 désactive le point d'accès HTTP
+ */
+public class ServerMetrics {
+
+    private static final int HTTP_PORT = Integer.getInteger("asmaa.metrics.port", 9100);
+    private static final String UNKNOWN_COMMAND = "INCONNUE";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final Map<String, Command> commands = new LinkedHashMap<>();
+    private static final Server server = new Server();
+
+    private static final AtomicInteger activeSessions = new AtomicInteger();
+    private static final AtomicInteger peakSessions = new AtomicInteger();
+    private static final AtomicLong totalSessions = new AtomicLong();
+    private static final AtomicLong bytesIn = new AtomicLong();
+    private static final AtomicLong bytesOut = new AtomicLong();
+    private static final long startMillis = System.currentTimeMillis();
+
+    private static HttpServer httpServer;
+    private static boolean registered;
+
+    static {
+        // Table figée avant tout accès concurrent : lectures sans verrou
+        for (Opcode opcode : Opcode.values()) {
+            commands.put(opcode.name(), new Command(opcode.name()));
+        }
+        commands.put(UNKNOWN_COMMAND, new Command(UNKNOWN_COMMAND));
+    }
+
+    /**
+     * Enregistre les MBeans et ouvre le point d'accès HTTP local
+     */
+    public static synchronized void start() {
+        if (!registered) {
+            try {
+                MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+                mbeans.registerMBean(server, new ObjectName("asmaa:type=Server"));
+                for (Command command : commands.values()) {
+                    mbeans.registerMBean(command, new ObjectName("asmaa:type=Command,name=" + command.name));
+                }
+                registered = true;
+            } catch (JMException e) {
+                log("Enregistrement JMX impossible: " + e.getMessage());
+            }
+        }
+
+        if (HTTP_PORT > 0 && httpServer == null) {
+            try {
+                httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), HTTP_PORT), 0);
+                httpServer.createContext("/metrics", ServerMetrics::handleHttp);
+                httpServer.start();
+                log("Métriques sur http://127.0.0.1:" + HTTP_PORT + "/metrics");
+            } catch (IOException e) {
+                httpServer = null;
+                log("Point d'accès des métriques indisponible: " + e.getMessage());
+            }
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (registered) {
+            try {
+                MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+                mbeans.unregisterMBean(new ObjectName("asmaa:type=Server"));
+                for (Command command : commands.values()) {
+                    mbeans.unregisterMBean(new ObjectName("asmaa:type=Command,name=" + command.name));
+                }
+            } catch (JMException e) {
+                log("Désenregistrement JMX impossible: " + e.getMessage());
+            }
+            registered = false;
+        }
+    }
+
+    // ==================== ENREGISTREMENT ====================
+
+    public static void sessionOpened() {
+        totalSessions.incrementAndGet();
+        peakSessions.accumulateAndGet(activeSessions.incrementAndGet(), Math::max);
+    }
+
+    public static void sessionClosed() {
+        activeSessions.decrementAndGet();
+    }
+
+    /**
+     * Une commande traitée et sa durée ; les commandes inconnues sont regroupées
+     */
+    public static void recordCommand(String command, long elapsedNanos, boolean error) {
+        Command metrics = commands.get(command);
+        if (metrics == null) {
+            metrics = commands.get(UNKNOWN_COMMAND);
+        }
+        metrics.requests.incrementAndGet();
+        if (error) {
+            metrics.errors.incrementAndGet();
+        }
+        metrics.latency.record(elapsedNanos / 1000);
+    }
+
+    public static void addBytesIn(long bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    public static void addBytesOut(long bytes) {
+        bytesOut.addAndGet(bytes);
+    }
+
+    /**
+     * Flux qui compte les octets lus (ancien protocole)
+     */
+    public static InputStream countingInput(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesIn.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesIn.addAndGet(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Flux qui compte les octets écrits (ancien protocole)
+     */
+    public static OutputStream countingOutput(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesOut.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                bytesOut.addAndGet(length);
+            }
+        };
+    }
+
+    // ==================== LECTURE ====================
+
+    /**
+     * Résumé des commandes appelées, pour les logs d'arrêt
+     */
+    public static String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(totalSessions.get()).append(" sessions (max simultanées ").append(peakSessions.get())
+                .append("), ").append(bytesIn.get() / 1024).append(" Ko reçus, ")
+                .append(bytesOut.get() / 1024).append(" Ko envoyés");
+        for (Command command : commands.values()) {
+            if (command.requests.get() > 0) {
+                report.append("\n  ").append(command.name).append(" : ").append(command.getRequests())
+                        .append(" requêtes, ").append(command.getErrors()).append(" erreurs, p50 ")
+                        .append(command.getP50Micros()).append(" µs, p99 ").append(command.getP99Micros())
+                        .append(" µs, max ").append(command.getMaxMicros()).append(" µs");
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Métriques au format texte d'exposition Prometheus
+     */
+    public static String getText() {
+        StringBuilder text = new StringBuilder();
+        gauge(text, "asmaa_sessions_active", "Sessions ouvertes", activeSessions.get());
+        gauge(text, "asmaa_sessions_peak", "Maximum de sessions simultanées", peakSessions.get());
+        counter(text, "asmaa_sessions_total", "Sessions ouvertes depuis le démarrage", totalSessions.get());
+        counter(text, "asmaa_bytes_in_total", "Octets reçus", bytesIn.get());
+        counter(text, "asmaa_bytes_out_total", "Octets envoyés", bytesOut.get());
+        gauge(text, "asmaa_uptime_seconds", "Durée de fonctionnement", server.getUptimeSeconds());
+        counter(text, "asmaa_log_dropped_total", "Messages de journal abandonnés (anneau plein)",
+                ServerLog.getDropped());
+
+        text.append("# HELP asmaa_requests_total Requêtes traitées par commande\n")
+                .append("# TYPE asmaa_requests_total counter\n");
+        for (Command command : commands.values()) {
+            text.append("asmaa_requests_total{command=\"").append(command.name).append("\"} ")
+                    .append(command.getRequests()).append('\n');
+        }
+        text.append("# HELP asmaa_request_errors_total Réponses en erreur par commande\n")
+                .append("# TYPE asmaa_request_errors_total counter\n");
+        for (Command command : commands.values()) {
+            text.append("asmaa_request_errors_total{command=\"").append(command.name).append("\"} ")
+                    .append(command.getErrors()).append('\n');
+        }
+        text.append("# HELP asmaa_request_latency_seconds Latence de traitement par commande\n")
+                .append("# TYPE asmaa_request_latency_seconds summary\n");
+        for (Command command : commands.values()) {
+            if (command.requests.get() == 0) {
+                continue;
+            }
+            for (double quantile : QUANTILES) {
+                text.append("asmaa_request_latency_seconds{command=\"").append(command.name)
+                        .append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(command.latency.percentile(quantile) / 1e6).append('\n');
+            }
+            text.append("asmaa_request_latency_seconds_count{command=\"").append(command.name).append("\"} ")
+                    .append(command.latency.count()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void gauge(StringBuilder text, String name, String help, long value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" gauge\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder text, String name, String help, long value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void handleHttp(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = getText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void log(String message) {
+        ServerLog.info("ServerMetrics", message);
+    }
+
+    // ==================== JMX ====================
+
+    public interface ServerMBean {
+        int getActiveSessions();
+        int getPeakSessions();
+        long getTotalSessions();
+        long getRequests();
+        long getErrors();
+        long getBytesIn();
+        long getBytesOut();
+        long getUptimeSeconds();
+        String getReport();
+    }
+
+    public interface CommandMBean {
+        long getRequests();
+        long getErrors();
+        long getMeanMicros();
+        long getP50Micros();
+        long getP99Micros();
+        long getP999Micros();
+        long getMaxMicros();
+    }
+
+    /**
+     * Vue JMX des compteurs globaux
+     */
+    public static final class Server implements ServerMBean {
+        @Override public int getActiveSessions() { return activeSessions.get(); }
+        @Override public int getPeakSessions() { return peakSessions.get(); }
+        @Override public long getTotalSessions() { return totalSessions.get(); }
+        @Override public long getBytesIn() { return bytesIn.get(); }
+        @Override public long getBytesOut() { return bytesOut.get(); }
+        @Override public long getUptimeSeconds() { return (System.currentTimeMillis() - startMillis) / 1000; }
+        @Override public String getReport() { return ServerMetrics.getReport(); }
+
+        @Override
+        public long getRequests() {
+            long total = 0;
+            for (Command command : commands.values()) {
+                total += command.requests.get();
+            }
+            return total;
+        }
+
+        @Override
+        public long getErrors() {
+            long total = 0;
+            for (Command command : commands.values()) {
+                total += command.errors.get();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Compteurs et histogramme de latence d'une commande
+     */
+    public static final class Command implements CommandMBean {
+        private final String name;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Command(String name) {
+            this.name = name;
+        }
+
+        @Override public long getRequests() { return requests.get(); }
+        @Override public long getErrors() { return errors.get(); }
+        @Override public long getMeanMicros() { return latency.mean(); }
+        @Override public long getP50Micros() { return latency.percentile(0.5); }
+        @Override public long getP99Micros() { return latency.percentile(0.99); }
+        @Override public long getP999Micros() { return latency.percentile(0.999); }
+        @Override public long getMaxMicros() { return latency.max(); }
+    }
+}
@@ -0,0 +1,148 @@
+package asmaa.server;
+
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Créneaux horaires réservés par terrain et par date, sous forme de bits
+ *
+ * Un mot de 64 bits par journée, modifié uniquement par compare-and-set :
+ *  - bits 0..23  : heures occupées par des réservations validées en base ;
+ *  - bits 24..47 : heures réclamées par des réservations en cours d'écriture ;
+ *  - bit 48      : journée oubliée (évincée), plus aucune réclamation possible ;
+ *  - bits 49..63 : version, incrémentée à chaque modification.
+ * Deux réservations d'un même terrain sur des heures différentes ne se
+ * bloquent jamais ; sur une même heure, la première réclamation gagne.
+ * Un créneau qui ne tombe pas sur des heures pleines occupe toutes les
+ * heures qu'il touche.
+ */
+public class SlotClaims {
+
+    private static final int HOURS = 24;
+    private static final long HOURS_MASK = (1L << HOURS) - 1;
+    private static final int PENDING_SHIFT = 24;
+    private static final long EVICTED = 1L << 48;
+    private static final int VERSION_SHIFT = 49;
+    private static final long VERSION_ONE = 1L << VERSION_SHIFT;
+
+    private final Map<Long, AtomicLong> days = new ConcurrentHashMap<>();
+
+    /**
+     * Masque des heures touchées par [heureDebut, heureFin[ (0 si le créneau est invalide)
+     */
+    public static int hourMask(LocalTime heureDebut, LocalTime heureFin) {
+        return hourMask(heureDebut.toSecondOfDay(),
+                heureFin.equals(LocalTime.MIDNIGHT) ? HOURS * 3600 : heureFin.toSecondOfDay());
+    }
+
+    static int hourMask(int startSecond, int endSecond) {
+        if (endSecond <= startSecond) {
+            return 0;
+        }
+        int first = startSecond / 3600;
+        int last = Math.min(HOURS, (endSecond + 3599) / 3600);
+        return (int) (((1L << (last - first)) - 1) << first);
+    }
+
+    /**
+     * État de la journée, ou null si elle n'a pas encore été initialisée
+     */
+    public AtomicLong get(long key) {
+        return days.get(key);
+    }
+
+    /**
+     * Initialise une journée à partir des heures occupées en base
+     * (sans effet si une autre réservation l'a initialisée entre-temps)
+     */
+    public AtomicLong init(long key, int committedMask) {
+        AtomicLong state = new AtomicLong(committedMask & HOURS_MASK);
+        AtomicLong existing = days.putIfAbsent(key, state);
+        return existing != null ? existing : state;
+    }
+
+    /**
+     * Réclame les heures du masque ; faux si l'une d'elles est déjà prise
+     * ou si la journée a été évincée entre-temps (voir isEvicted)
+     */
+    public static boolean claim(AtomicLong state, int mask) {
+        while (true) {
+            long current = state.get();
+            if ((current & EVICTED) != 0) {
+                return false;
+            }
+            long taken = (current | (current >>> PENDING_SHIFT)) & HOURS_MASK;
+            if ((taken & mask) != 0) {
+                return false;
+            }
+            long next = (current | ((long) mask << PENDING_SHIFT)) + VERSION_ONE;
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * La réservation est validée en base : ses heures passent de réclamées à occupées
+     */
+    public static void commit(AtomicLong state, int mask) {
+        state.getAndUpdate(current -> ((current & ~((long) mask << PENDING_SHIFT)) | mask) + VERSION_ONE);
+    }
+
+    /**
+     * L'écriture a échoué : les heures réclamées sont rendues
+     */
+    public static void release(AtomicLong state, int mask) {
+        state.getAndUpdate(current -> (current & ~((long) mask << PENDING_SHIFT)) + VERSION_ONE);
+    }
+
+    /**
+     * Libère des heures occupées (réservation annulée)
+     */
+    public static void clearCommitted(AtomicLong state, int mask) {
+        state.getAndUpdate(current -> (current & ~(mask & HOURS_MASK)) + VERSION_ONE);
+    }
+
+    /**
+     * Remplace les heures occupées seulement si la journée n'a pas changé
+     * depuis expected et qu'aucune réclamation n'est en cours
+     */
+    public static boolean replaceCommitted(AtomicLong state, long expected, int committedMask) {
+        if (hasPending(expected)) {
+            return false;
+        }
+        long next = ((expected & ~HOURS_MASK) | (committedMask & HOURS_MASK)) + VERSION_ONE;
+        return state.compareAndSet(expected, next);
+    }
+
+    public static boolean hasPending(long stateValue) {
+        return ((stateValue >>> PENDING_SHIFT) & HOURS_MASK) != 0;
+    }
+
+    public static boolean isEvicted(AtomicLong state) {
+        return (state.get() & EVICTED) != 0;
+    }
+
+    /**
+     * Oublie une journée si aucune réclamation n'y est en cours ; l'état est
+     * d'abord marqué évincé pour qu'aucune réclamation ne s'y ajoute ensuite
+     */
+    public boolean evict(long key) {
+        AtomicLong state = days.get(key);
+        if (state == null) {
+            return true;
+        }
+        long current = state.get();
+        if (hasPending(current) || !state.compareAndSet(current, current | EVICTED)) {
+            return false;
+        }
+        days.remove(key, state);
+        return true;
+    }
+
+    public int size() {
+        return days.size();
+    }
+}
@@ -0,0 +1,185 @@
+package asmaa.server;
+
+import asmaa.model.Reservation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Statistiques d'administration tenues en mémoire
+ *
+ * Les compteurs sont mis à jour par les chemins d'inscription, de réservation
+ * et d'annulation ; ADMIN_STATS les lit sans requête SQL. Ils sont recalés sur
+ * la base toutes les -Dasmaa.stats.reconcileSec secondes (60 par défaut) pour
+ * prendre en compte les modifications faites hors du serveur, et aussitôt
+ * après un blocage de terrain (l'état précédent du terrain n'est pas connu).
+ */
+public class StatsCounters {
+
+    private static final long RECONCILE_SECONDS = Long.getLong("asmaa.stats.reconcileSec", 60L);
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private static final AtomicLong totalUsers = new AtomicLong();
+    private static final AtomicLong totalReservations = new AtomicLong();
+    private static final AtomicLong reservationsConfirmees = new AtomicLong();
+    private static final AtomicLong revenusCentimes = new AtomicLong();
+    private static final AtomicLong terrainsActifs = new AtomicLong();
+
+    // Incrémenté à chaque mise à jour : un recalage qui en chevauche une est rejoué.
+    // Les mises à jour prennent le verrou partagé, l'écriture du recalage le verrou exclusif.
+    private static final AtomicLong generation = new AtomicLong();
+    private static final ReadWriteLock updateLock = new ReentrantReadWriteLock();
+    private static final AtomicBoolean reconcilePending = new AtomicBoolean();
+    private static volatile boolean loaded;
+    private static ScheduledExecutorService reconciler;
+
+    /**
+     * Charge les compteurs et planifie le recalage périodique
+     */
+    public static synchronized void start() {
+        if (reconciler != null) {
+            return;
+        }
+
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.execute(StatsCounters::reconcile);
+        reconciler.scheduleWithFixedDelay(StatsCounters::reconcile,
+                RECONCILE_SECONDS, RECONCILE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    /**
+     * Statistiques courantes (mêmes clés que la requête en base)
+     */
+    public static Map<String, Object> getStatistiques() {
+        if (!loaded) {
+            reconcile();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", (int) totalUsers.get());
+        stats.put("totalReservations", (int) totalReservations.get());
+        stats.put("reservationsConfirmees", (int) reservationsConfirmees.get());
+        stats.put("revenusTotaux", revenusCentimes.get() / 100.0);
+        stats.put("terrainsActifs", (int) terrainsActifs.get());
+        return stats;
+    }
+
+    public static void onUserRegistered() {
+        updateLock.readLock().lock();
+        try {
+            generation.incrementAndGet();
+            totalUsers.incrementAndGet();
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    public static void onReservationCreated(Reservation reservation) {
+        updateLock.readLock().lock();
+        try {
+            generation.incrementAndGet();
+            totalReservations.incrementAndGet();
+            if (reservation.getStatut() == Reservation.Statut.CONFIRMEE) {
+                reservationsConfirmees.incrementAndGet();
+                revenusCentimes.addAndGet(toCentimes(reservation.getPrixTotal()));
+            }
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param previous statut et prix de la réservation avant son annulation
+     */
+    public static void onReservationCancelled(Reservation previous) {
+        updateLock.readLock().lock();
+        try {
+            generation.incrementAndGet();
+            if (previous.getStatut() == Reservation.Statut.CONFIRMEE) {
+                reservationsConfirmees.decrementAndGet();
+                revenusCentimes.addAndGet(-toCentimes(previous.getPrixTotal()));
+            }
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Un terrain a été bloqué : recalage immédiat en arrière-plan
+     */
+    public static void onTerrainBlocked() {
+        generation.incrementAndGet();
+        requestReconcile();
+    }
+
+    /**
+     * Demande un recalage sur le thread de recalage (un seul en attente à la fois)
+     */
+    public static void requestReconcile() {
+        ScheduledExecutorService executor = reconciler;
+        if (executor != null && reconcilePending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                reconcilePending.set(false);
+                reconcile();
+            });
+        } else if (executor == null) {
+            loaded = false;
+        }
+    }
+
+    /**
+     * Recale les compteurs sur la base ; une mise à jour arrivée pendant la
+     * requête rend le résultat suspect, on recommence
+     */
+    static synchronized void reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long before = generation.get();
+            Map<String, Object> stats = DatabaseManager.getStatistiques();
+            if (stats == null) {
+                return;  // Base indisponible : on garde les compteurs actuels
+            }
+
+            updateLock.writeLock().lock();
+            try {
+                if (generation.get() == before) {
+                    totalUsers.set(((Number) stats.get("totalUsers")).longValue());
+                    totalReservations.set(((Number) stats.get("totalReservations")).longValue());
+                    reservationsConfirmees.set(((Number) stats.get("reservationsConfirmees")).longValue());
+                    revenusCentimes.set(toCentimes(((Number) stats.get("revenusTotaux")).doubleValue()));
+                    terrainsActifs.set(((Number) stats.get("terrainsActifs")).longValue());
+                    loaded = true;
+                    return;
+                }
+            } finally {
+                updateLock.writeLock().unlock();
+            }
+        }
+        log("Recalage des statistiques reporté (activité soutenue)");
+    }
+
+    private static long toCentimes(double montant) {
+        return Math.round(montant * 100);
+    }
+
+    private static void log(String message) {
+        ServerLog.info("StatsCounters", message);
+    }
+}
@@ -0,0 +1,172 @@
+package asmaa.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Table de verrous de taille fixe, indexée par (terrain, date)
+ *
+ * Chaque clé tombe sur l'un des N verrous (N puissance de deux) : la mémoire
+ * ne dépend plus du nombre de terrains ni de jours réservés. Deux journées
+ * qui partagent un verrou s'attendent mutuellement, d'où les compteurs par
+ * verrou (acquisitions, attentes, temps et file d'attente) qui permettent de
+ * choisir N d'après la répartition réelle des réservations.
+ *
+ * -Dasmaa.locks.stripes (64) : nombre de verrous
+ * -Dasmaa.locks.fair (false) : verrous équitables (FIFO), plus lents
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final boolean fair;
+
+    private final AtomicLongArray acquisitions;
+    private final AtomicLongArray contended;
+    private final AtomicLongArray waitNanos;
+    private final AtomicLongArray maxWaitNanos;
+    private final AtomicLongArray maxQueueLength;
+
+    public StripedLocks() {
+        this(Integer.getInteger("asmaa.locks.stripes", 64), Boolean.getBoolean("asmaa.locks.fair"));
+    }
+
+    public StripedLocks(int stripes, boolean fair) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;  // Puissance de deux : l'indice est un simple masque
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock(fair);
+        }
+        this.mask = size - 1;
+        this.fair = fair;
+        this.acquisitions = new AtomicLongArray(size);
+        this.contended = new AtomicLongArray(size);
+        this.waitNanos = new AtomicLongArray(size);
+        this.maxWaitNanos = new AtomicLongArray(size);
+        this.maxQueueLength = new AtomicLongArray(size);
+    }
+
+    /**
+     * Acquiert le verrou de la clé et le retourne (à libérer par unlock())
+     */
+    public ReentrantLock lock(long key) {
+        int stripe = stripeOf(key);
+        ReentrantLock lock = locks[stripe];
+        acquisitions.incrementAndGet(stripe);
+
+        if (tryLockNow(lock)) {
+            return lock;
+        }
+
+        // Verrou occupé : mesurer l'attente et la longueur de la file
+        contended.incrementAndGet(stripe);
+        updateMax(maxQueueLength, stripe, lock.getQueueLength() + 1);
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(stripe, waited);
+        updateMax(maxWaitNanos, stripe, waited);
+        return lock;
+    }
+
+    /**
+     * Verrou correspondant à une clé, sans l'acquérir
+     */
+    public int stripeOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;  // Mélange : terrains et jours voisins se dispersent
+        return (int) (h >>> 40) & mask;
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+    /**
+     * Résumé de la contention ; détaille les verrous les plus disputés
+     */
+    public String getReport() {
+        long totalAcquisitions = 0;
+        long totalContended = 0;
+        long totalWait = 0;
+        int hottest = 0;
+
+        for (int i = 0; i < locks.length; i++) {
+            totalAcquisitions += acquisitions.get(i);
+            totalContended += contended.get(i);
+            totalWait += waitNanos.get(i);
+            if (waitNanos.get(i) > waitNanos.get(hottest)) {
+                hottest = i;
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(locks.length).append(" verrous").append(fair ? " équitables" : "")
+                .append(", ").append(totalAcquisitions).append(" acquisitions, ")
+                .append(totalContended).append(" en attente (")
+                .append(totalAcquisitions == 0 ? 0 : totalContended * 100 / totalAcquisitions)
+                .append("%), attente totale ").append(TimeUnit.NANOSECONDS.toMillis(totalWait)).append(" ms");
+
+        if (totalContended > 0) {
+            report.append(" ; verrou le plus disputé #").append(hottest).append(" : ")
+                    .append(getStripeReport(hottest));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Compteurs d'un verrou
+     */
+    public String getStripeReport(int stripe) {
+        return acquisitions.get(stripe) + " acquisitions, "
+                + contended.get(stripe) + " attentes, "
+                + TimeUnit.NANOSECONDS.toMillis(waitNanos.get(stripe)) + " ms d'attente, "
+                + "max " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get(stripe)) + " ms, "
+                + "file en cours " + locks[stripe].getQueueLength()
+                + " (max " + maxQueueLength.get(stripe) + ")";
+    }
+
+    public long getAcquisitions(int stripe) {
+        return acquisitions.get(stripe);
+    }
+
+    public long getContended(int stripe) {
+        return contended.get(stripe);
+    }
+
+    public long getWaitNanos(int stripe) {
+        return waitNanos.get(stripe);
+    }
+
+    public int getQueueLength(int stripe) {
+        return locks[stripe].getQueueLength();
+    }
+
+    /**
+     * Acquisition immédiate si le verrou est libre ; un verrou équitable
+     * n'est pas pris devant des threads déjà en attente
+     */
+    private boolean tryLockNow(ReentrantLock lock) {
+        if (!fair) {
+            return lock.tryLock();
+        }
+        try {
+            return lock.tryLock(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void updateMax(AtomicLongArray array, int index, long value) {
+        long current;
+        while (value > (current = array.get(index))) {
+            if (array.compareAndSet(index, current, value)) {
+                return;
+            }
+        }
+    }
+}
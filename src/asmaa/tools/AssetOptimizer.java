@@ -0,0 +1,164 @@
+package asmaa.tools;
+
+import asmaa.utils.ImageScaler;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Étape de préparation des ressources : produit pour chaque image de
+ * resources/images des variantes à plusieurs largeurs et leur manifeste,
+ * lus par ImageService (client)
+ *
+ *   <sortie>/<nom>-<largeur>.jpg   JPEG progressif, qualité 0.85
+ *   <sortie>/<nom>-<largeur>.png   sources PNG avec transparence (conservée)
+ *   <sortie>/manifest.properties   <fichier>=<l>x<h>,...  <fichier>.source=<octets>
+ *                                  <fichier>.format=<extension des variantes>
+ *
+ * Un PNG entièrement opaque (photo, logo sans transparence) donne des
+ * variantes JPEG, plusieurs fois plus légères.
+ *
+ * Une variante n'est jamais plus large que sa source ; une source plus
+ * étroite que le plus petit palier donne une seule variante à sa taille.
+ * La taille de la source, notée dans le manifeste, permet au client
+ * d'ignorer des variantes périmées. À lancer avant l'empaquetage du client ;
+ * le paquet peut alors ne livrer que <sortie> : sans source, le client se
+ * contente de la plus grande variante.
+ *
+ * Usage : java asmaa.tools.AssetOptimizer [options]
+ *   --source DIR      images d'origine (resources/images)
+ *   --output DIR      variantes et manifeste (resources/images/variants)
+ *   --widths L,L,...  paliers de largeur en pixels (480,960,1920)
+ */
+public class AssetOptimizer {
+
+    private Path source = Paths.get("resources", "images");
+    private Path output;
+    private int[] widths = {480, 960, 1920};
+
+    public static void main(String[] args) throws IOException {
+        AssetOptimizer optimizer = new AssetOptimizer();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--source": optimizer.source = Paths.get(args[++i]); break;
+                case "--output": optimizer.output = Paths.get(args[++i]); break;
+                case "--widths": optimizer.widths = parseWidths(args[++i]); break;
+                default: throw new IllegalArgumentException("Option inconnue: " + args[i]);
+            }
+        }
+        if (optimizer.output == null) {
+            optimizer.output = optimizer.source.resolve("variants");
+        }
+        optimizer.run();
+    }
+
+    private void run() throws IOException {
+        Files.createDirectories(output);
+        Map<String, String> manifest = new TreeMap<>();
+        long sourceBytes = 0;
+        long variantBytes = 0;
+
+        try (DirectoryStream<Path> images = Files.newDirectoryStream(source, "*.{jpg,jpeg,png}")) {
+            for (Path image : images) {
+                String name = image.getFileName().toString();
+                long start = System.nanoTime();
+                List<String> sizes = new ArrayList<>();
+                try {
+                    variantBytes += optimize(image, name, sizes);
+                } catch (IOException e) {
+                    System.err.println("[AssetOptimizer] " + name + " ignorée: " + e.getMessage());
+                    continue;
+                }
+                sourceBytes += Files.size(image);
+
+                manifest.put(name, String.join(",", sizes.subList(1, sizes.size())));
+                manifest.put(name + ".format", sizes.get(0));
+                manifest.put(name + ".source", String.valueOf(Files.size(image)));
+                System.out.printf("%-16s %8d Ko -> %s %s (%d ms)%n", name, Files.size(image) / 1024,
+                        sizes.get(0), String.join(" ", sizes.subList(1, sizes.size())),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+        writeManifest(manifest);
+        System.out.printf("%d images : %d Ko -> %d Ko pour toutes les variantes%n",
+                manifest.size() / 3, sourceBytes / 1024, variantBytes / 1024);
+    }
+
+    /**
+     * Écrit les variantes d'une image et retourne leur taille totale en octets
+     * (sizes reçoit le format des variantes puis leurs dimensions)
+     * La source n'est décodée qu'une fois, au plus grand palier utile ; les
+     * paliers inférieurs sont réduits à partir de cette image.
+     */
+    private long optimize(Path image, String name, List<String> sizes) throws IOException {
+        String baseName = name.substring(0, name.lastIndexOf('.'));
+        int[] size = ImageScaler.readSize(image.toUri().toURL());
+
+        int largest = Math.min(widths[widths.length - 1], size[0]);
+        boolean alpha = name.toLowerCase().endsWith(".png");
+        BufferedImage decoded = ImageScaler.readScaled(image.toUri().toURL(), (double) largest / size[0], alpha);
+        boolean png = alpha && hasTransparency(decoded);
+        String extension = png ? ".png" : alpha ? ".jpg" : name.substring(name.lastIndexOf('.'));
+        sizes.add(extension.substring(1));
+        long bytes = 0;
+
+        for (int width : widths) {
+            int variantWidth = Math.min(width, decoded.getWidth());
+            int variantHeight = Math.max(1, (int) Math.round((double) decoded.getHeight() * variantWidth
+                    / decoded.getWidth()));
+            // Toujours redessinée : convertit aussi un PNG opaque (ARGB) en RGB pour le JPEG
+            BufferedImage scaled = ImageScaler.resize(decoded, variantWidth, variantHeight, png);
+
+            Path variant = output.resolve(baseName + "-" + variantWidth + extension);
+            ImageScaler.write(scaled, variant, png, true);
+            sizes.add(variantWidth + "x" + scaled.getHeight());
+            bytes += Files.size(variant);
+
+            if (variantWidth == decoded.getWidth()) {
+                break;  // Palier suivant plus large que la source
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean hasTransparency(BufferedImage image) {
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) != 0xFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void writeManifest(Map<String, String> manifest) throws IOException {
+        // Écrit à la main (trié, sans horodatage) : le fichier ne change que si les variantes changent
+        StringBuilder text = new StringBuilder("# Variantes générées par asmaa.tools.AssetOptimizer\n");
+        manifest.forEach((key, value) -> text.append(key).append('=').append(value).append('\n'));
+        try (OutputStream out = Files.newOutputStream(output.resolve("manifest.properties"))) {
+            out.write(text.toString().getBytes("ISO-8859-1"));
+        }
+    }
+
+    private static int[] parseWidths(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,147 @@
+package asmaa.tools;
+
+import asmaa.model.Reservation;
+import asmaa.server.ReservationStore;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stockage des réservations en mémoire, à la place de MySQL, pour les mesures
+ *
+ * Chaque appel peut simuler un aller-retour réseau (roundTripMicros) et chaque
+ * validation une écriture du journal (commitMicros) ; à 0 seul le coût du
+ * code serveur est mesuré.
+ */
+public class InMemoryReservationStore implements ReservationStore {
+
+    private final Map<Long, List<Reservation>> days = new ConcurrentHashMap<>();
+    private final Map<Integer, Reservation> byId = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final long roundTripNanos;
+    private final long commitNanos;
+
+    public InMemoryReservationStore() {
+        this(0, 0);
+    }
+
+    public InMemoryReservationStore(long roundTripMicros, long commitMicros) {
+        this.roundTripNanos = roundTripMicros * 1000;
+        this.commitNanos = commitMicros * 1000;
+    }
+
+    @Override
+    public boolean checkDisponibilite(int terrainId, LocalDate date, LocalTime heureDebut, LocalTime heureFin) {
+        roundTrip();
+        for (Reservation reservation : snapshot(terrainId, date)) {
+            if (reservation.getHeureDebut().isBefore(heureFin) && heureDebut.isBefore(reservation.getHeureFin())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Reservation> getReservationSlots(int terrainId, LocalDate date) {
+        roundTrip();
+        return snapshot(terrainId, date);
+    }
+
+    @Override
+    public Map<Integer, List<Reservation>> getReservationSlotsByCentre(int centreId, int sportId, LocalDate date) {
+        roundTrip();
+        return new HashMap<>();
+    }
+
+    @Override
+    public boolean createReservation(Reservation reservation) {
+        roundTrip();
+        insert(reservation);
+        commit();
+        return true;
+    }
+
+    @Override
+    public boolean createReservations(List<Reservation> batch) {
+        roundTrip();
+        for (Reservation reservation : batch) {
+            insert(reservation);
+        }
+        commit();
+        return true;
+    }
+
+    @Override
+    public Reservation annulerReservationDetaillee(int reservationId) {
+        roundTrip();
+        Reservation reservation = byId.remove(reservationId);
+        if (reservation == null) {
+            return null;
+        }
+        List<Reservation> day = days.get(key(reservation.getTerrainId(), reservation.getDateReservation()));
+        synchronized (day) {
+            day.remove(reservation);
+        }
+        commit();
+
+        Reservation previous = new Reservation();
+        previous.setId(reservationId);
+        previous.setTerrainId(reservation.getTerrainId());
+        previous.setDateReservation(reservation.getDateReservation());
+        previous.setStatut(reservation.getStatut());
+        previous.setPrixTotal(reservation.getPrixTotal());
+        return previous;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void insert(Reservation reservation) {
+        reservation.setId(nextId.incrementAndGet());
+        List<Reservation> day = days.computeIfAbsent(
+                key(reservation.getTerrainId(), reservation.getDateReservation()), k -> new ArrayList<>());
+        synchronized (day) {
+            day.add(reservation);
+        }
+        byId.put(reservation.getId(), reservation);
+    }
+
+    private List<Reservation> snapshot(int terrainId, LocalDate date) {
+        List<Reservation> day = days.get(key(terrainId, date));
+        if (day == null) {
+            return new ArrayList<>();
+        }
+        synchronized (day) {
+            return new ArrayList<>(day);
+        }
+    }
+
+    private static long key(int terrainId, LocalDate date) {
+        return ((long) terrainId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    private void roundTrip() {
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+
+    /**
+     * Validation : sérialisée comme l'écriture du journal d'un vrai moteur
+     */
+    private void commit() {
+        if (commitNanos > 0) {
+            synchronized (this) {
+                LockSupport.parkNanos(commitNanos);
+            }
+        }
+    }
+}
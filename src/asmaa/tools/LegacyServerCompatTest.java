@@ -0,0 +1,219 @@
+package asmaa.tools;
+
+import asmaa.client.NetworkClient;
+import asmaa.model.Centre;
+import asmaa.model.Sport;
+import asmaa.model.Terrain;
+import asmaa.model.Ville;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de compatibilité : le client actuel contre un serveur d'avant
+ * GET_CATALOGUE et le protocole binaire
+ *
+ * Le serveur de test reproduit l'ancien ClientHandler : ancien protocole
+ * seulement (une poignée de main binaire est refusée par fermeture de la
+ * connexion), "Commande inconnue" sans lire les arguments d'une commande
+ * inconnue. Le client doit se replier sur l'ancien protocole puis obtenir
+ * chaque liste du catalogue par sa commande d'origine, sans désynchroniser
+ * le flux (connexion directe, puis connexion en arrière-plan).
+ * La copie locale du catalogue est écrite dans un fichier temporaire.
+ *
+ * Usage : java asmaa.tools.LegacyServerCompatTest [port]
+ * Code de sortie 1 si une vérification échoue.
+ */
+public class LegacyServerCompatTest {
+
+    private static final int LIST_SIZE = 3;
+
+    private final AtomicInteger protocolErrors = new AtomicInteger();
+    private final AtomicInteger unknownCommands = new AtomicInteger();
+    private int failures;
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5200;
+        if (System.getProperty("asmaa.client.catalogueFile") == null) {
+            File file = Files.createTempFile("catalogue", ".bin").toFile();
+            file.delete();
+            file.deleteOnExit();
+            System.setProperty("asmaa.client.catalogueFile", file.getPath());
+        }
+
+        LegacyServerCompatTest test = new LegacyServerCompatTest();
+        ServerSocket serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(() -> test.accept(serverSocket), "legacy-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        test.run(port);
+        serverSocket.close();
+
+        System.out.println();
+        System.out.println("commandes inconnues reçues : " + test.unknownCommands.get()
+                + ", erreurs de protocole côté serveur : " + test.protocolErrors.get());
+        if (test.protocolErrors.get() > 0) {
+            test.failures++;
+        }
+        System.out.println(test.failures == 0 ? "OK" : test.failures + " vérification(s) en échec");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+
+    private void run(int port) throws Exception {
+        // Connexion en arrière-plan : la requête attend la fin de la poignée de main
+        NetworkClient background = new NetworkClient("localhost", port);
+        background.connectAsync();
+        check("centres (connexion en cours)", result(background.getCentresAsync(1)));
+        background.disconnect();
+
+        NetworkClient client = new NetworkClient("localhost", port);
+        if (!client.connect()) {
+            throw new IllegalStateException("Serveur de test injoignable");
+        }
+        check("villes", client.getVilles());
+        check("sports", client.getSports());
+        check("terrains", client.getTerrains(1, 1));
+        check("centres", client.getCentres(2));
+        check("réconciliation", Integer.valueOf(0).equals(result(client.reconcileCatalogue())));
+        check("sports (après réconciliation)", client.getSports());
+        client.disconnect();
+    }
+
+    private static <T> T result(CompletableFuture<T> future) throws InterruptedException {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Requête en échec: " + e);
+            return null;
+        }
+    }
+
+    private void check(String name, List<?> list) {
+        check(name, list != null && list.size() == LIST_SIZE);
+    }
+
+    private void check(String name, boolean ok) {
+        System.out.println((ok ? "[ok]    " : "[ÉCHEC] ") + name);
+        if (!ok) {
+            failures++;
+        }
+    }
+
+    private void accept(ServerSocket serverSocket) {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread session = new Thread(() -> serve(socket), "legacy-session");
+                session.setDaemon(true);
+                session.start();
+            }
+        } catch (IOException e) {
+            // Serveur de test fermé
+        }
+    }
+
+    /**
+     * Boucle de l'ancien ClientHandler, réduite aux listes du catalogue
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            ObjectOutputStream output = new ObjectOutputStream(s.getOutputStream());
+            output.flush();
+            ObjectInputStream input;
+            try {
+                input = new ObjectInputStream(s.getInputStream());
+            } catch (StreamCorruptedException e) {
+                return;  // Poignée de main binaire ou tramée : l'ancien serveur ferme
+            }
+
+            while (true) {
+                String command = (String) input.readObject();
+                switch (command) {
+                    case "GET_SPORTS":
+                        respond(output, "SUCCESS", sports());
+                        break;
+                    case "GET_VILLES":
+                        respond(output, "SUCCESS", villes());
+                        break;
+                    case "GET_CENTRES":
+                        input.readInt();
+                        respond(output, "SUCCESS", centres());
+                        break;
+                    case "GET_TERRAINS":
+                        input.readInt();
+                        input.readInt();
+                        respond(output, "SUCCESS", terrains());
+                        break;
+                    case "DISCONNECT":
+                        return;
+                    default:
+                        // Comme l'ancien serveur : les arguments éventuels restent dans le flux
+                        unknownCommands.incrementAndGet();
+                        respond(output, "ERROR", "Commande inconnue: " + command);
+                }
+            }
+        } catch (EOFException e) {
+            // Client déconnecté
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            protocolErrors.incrementAndGet();
+            System.err.println("[legacy-server] Flux désynchronisé: " + e);
+        }
+    }
+
+    private static void respond(ObjectOutputStream output, String status, Object data) throws IOException {
+        output.writeObject(status);
+        output.writeObject(data);
+        output.flush();
+    }
+
+    private static List<Sport> sports() {
+        List<Sport> sports = new ArrayList<>();
+        for (int i = 1; i <= LIST_SIZE; i++) {
+            Sport sport = new Sport();
+            sport.setId(i);
+            sport.setNom("Sport " + i);
+            sports.add(sport);
+        }
+        return sports;
+    }
+
+    private static List<Ville> villes() {
+        List<Ville> villes = new ArrayList<>();
+        for (int i = 1; i <= LIST_SIZE; i++) {
+            villes.add(new Ville(i, "Ville " + i));
+        }
+        return villes;
+    }
+
+    private static List<Centre> centres() {
+        List<Centre> centres = new ArrayList<>();
+        for (int i = 1; i <= LIST_SIZE; i++) {
+            Centre centre = new Centre();
+            centre.setId(i);
+            centre.setNom("Centre " + i);
+            centres.add(centre);
+        }
+        return centres;
+    }
+
+    private static List<Terrain> terrains() {
+        List<Terrain> terrains = new ArrayList<>();
+        for (int i = 1; i <= LIST_SIZE; i++) {
+            Terrain terrain = new Terrain();
+            terrain.setId(i);
+            terrain.setNom("Terrain " + i);
+            terrains.add(terrain);
+        }
+        return terrains;
+    }
+}
@@ -0,0 +1,413 @@
+package asmaa.tools;
+
+import asmaa.client.NetworkClient;
+import asmaa.model.*;
+import asmaa.utils.LatencyHistogram;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Générateur de charge de bout en bout : N sessions NetworkClient contre un
+ * ServerMain en marche, chacune rejouant le parcours d'un client
+ *
+ *   LOGIN, GET_SPORTS (une fois par session), puis en boucle :
+ *   GET_VILLES → GET_CENTRES → GET_TERRAINS → CHECK_DISPONIBILITE → RESERVER
+ *
+ * Entre deux requêtes, la session marque une pause de durée exponentielle
+ * (moyenne --think). Les choix de ville, centre et terrain sont biaisés :
+ * une part --hot des choix tombe sur les --hot-count premiers éléments de la
+ * liste, ce qui concentre les réservations sur quelques terrains.
+ *
+ * En fin de test : débit, latences p50/p99/p999 par commande, taux d'erreurs
+ * et de conflits (créneau déjà pris à la vérification, ou perdu entre la
+ * vérification et la réservation).
+ *
+ * Les comptes utilisés sont <prefixe>0 .. <prefixe>(N-1), avec le même mot de
+ * passe ; --register les crée avant le test.
+ *
+ * Usage : java asmaa.tools.LoadGenerator [options]
+ *   --host H          serveur (localhost)        --port P        port (5000)
+ *   --sessions N      sessions simultanées (1000) --ramp S       montée en charge, s (30)
+ *   --duration S      durée du test, s (120)      --think MS     pause moyenne, ms (1000)
+ *   --hot F           part des choix biaisés (0.8) --hot-count K  éléments « chauds » (2)
+ *   --days D          horizon des réservations, jours (14)
+ *   --accounts N      comptes distincts (100)     --prefix P     préfixe des comptes (charge)
+ *   --password P      mot de passe (charge123)    --register     crée les comptes d'abord
+ *   --workers N       threads d'envoi (8)
+ * Le protocole est celui de NetworkClient (-Dasmaa.client.protocol) ; en
+ * protocole legacy chaque requête occupe un thread d'envoi jusqu'à sa réponse.
+ * Les sessions n'ont pas de copie locale du catalogue (CatalogueStore) :
+ * chaque GET_* part bien au serveur et ~/.asmaa/catalogue.bin reste intact.
+ */
+public class LoadGenerator {
+
+    private static final String[] COMMANDS = {
+            "LOGIN", "GET_SPORTS", "GET_VILLES", "GET_CENTRES", "GET_TERRAINS", "CHECK_DISPONIBILITE", "RESERVER"
+    };
+    private static final int FIRST_HOUR = 8;
+    private static final int LAST_HOUR = 22;
+    private static final long REPORT_INTERVAL_MS = 10_000;
+
+    private String host = System.getProperty("asmaa.server.host", "localhost");
+    private int port = Integer.getInteger("asmaa.server.port", 5000);
+    private int sessions = 1000;
+    private long rampMs = 30_000;
+    private long durationMs = 120_000;
+    private long thinkMs = 1000;
+    private double hotRatio = 0.8;
+    private int hotCount = 2;
+    private int days = 14;
+    private int accounts = 100;
+    private String prefix = "charge";
+    private String password = "charge123";
+    private boolean register;
+    private int workers = 8;
+
+    private final CommandStats[] stats = new CommandStats[COMMANDS.length];
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicInteger failedConnections = new AtomicInteger();
+    private final AtomicLong completedFlows = new AtomicLong();
+    private final AtomicLong abortedFlows = new AtomicLong();
+    private final AtomicLong bookings = new AtomicLong();
+    private volatile boolean running = true;
+
+    private ExecutorService executor;
+    private ExecutorService connector;
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": generator.host = args[++i]; break;
+                case "--port": generator.port = Integer.parseInt(args[++i]); break;
+                case "--sessions": generator.sessions = Integer.parseInt(args[++i]); break;
+                case "--ramp": generator.rampMs = Long.parseLong(args[++i]) * 1000; break;
+                case "--duration": generator.durationMs = Long.parseLong(args[++i]) * 1000; break;
+                case "--think": generator.thinkMs = Long.parseLong(args[++i]); break;
+                case "--hot": generator.hotRatio = Double.parseDouble(args[++i]); break;
+                case "--hot-count": generator.hotCount = Integer.parseInt(args[++i]); break;
+                case "--days": generator.days = Integer.parseInt(args[++i]); break;
+                case "--accounts": generator.accounts = Integer.parseInt(args[++i]); break;
+                case "--prefix": generator.prefix = args[++i]; break;
+                case "--password": generator.password = args[++i]; break;
+                case "--register": generator.register = true; break;
+                case "--workers": generator.workers = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Option inconnue: " + args[i]);
+            }
+        }
+        generator.run();
+    }
+
+    private void run() throws InterruptedException {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            stats[i] = new CommandStats();
+        }
+        if (register) {
+            registerAccounts();
+        }
+
+        executor = Executors.newFixedThreadPool(workers, daemon("load-worker"));
+        connector = Executors.newFixedThreadPool(Math.min(32, sessions), daemon("load-connect"));
+
+        log(sessions + " sessions vers " + host + ":" + port + ", montée " + rampMs / 1000 + " s, durée "
+                + durationMs / 1000 + " s, pause moyenne " + thinkMs + " ms");
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < sessions; i++) {
+            Session session = new Session(i);
+            long delay = sessions > 1 ? rampMs * i / (sessions - 1) : 0;
+            CompletableFuture.runAsync(session::start,
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, connector));
+        }
+
+        // Point d'étape périodique, puis arrêt à l'échéance
+        long deadline = start + durationMs;
+        long lastRequests = 0;
+        long lastReport = start;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(Math.min(REPORT_INTERVAL_MS, Math.max(1, deadline - System.currentTimeMillis())));
+            long now = System.currentTimeMillis();
+            long requests = totalRequests();
+            log(String.format(Locale.ROOT, "t=%ds sessions=%d req/s=%.0f erreurs=%d conflits=%d",
+                    (now - start) / 1000, activeSessions.get(),
+                    (requests - lastRequests) * 1000.0 / Math.max(1, now - lastReport),
+                    totalErrors(), totalConflicts()));
+            lastRequests = requests;
+            lastReport = now;
+        }
+
+        // Les sessions terminent la requête en cours puis se déconnectent
+        running = false;
+        long elapsedMs = System.currentTimeMillis() - start;
+        long stopDeadline = System.currentTimeMillis() + 10_000;
+        while (activeSessions.get() > 0 && System.currentTimeMillis() < stopDeadline) {
+            Thread.sleep(100);
+        }
+        connector.shutdownNow();
+        executor.shutdownNow();
+
+        printReport(elapsedMs);
+    }
+
+    /**
+     * Crée les comptes de test (les comptes déjà présents sont comptés en erreur)
+     */
+    private void registerAccounts() {
+        NetworkClient client = new NetworkClient(host, port, null);
+        if (!client.connect()) {
+            throw new IllegalStateException("Serveur injoignable: " + host + ":" + port);
+        }
+        int created = 0;
+        for (int i = 0; i < accounts; i++) {
+            User user = new User(prefix + i, prefix + i + "@charge.asmaa.ma", password, "Charge", "Session " + i);
+            if (client.register(user)) {
+                created++;
+            }
+        }
+        client.disconnect();
+        log(created + "/" + accounts + " comptes créés");
+    }
+
+    /**
+     * Une session : une connexion et un utilisateur
+     */
+    private final class Session {
+        private final int index;
+        private NetworkClient client;
+        private List<Sport> sports;
+
+        Session(int index) {
+            this.index = index;
+        }
+
+        void start() {
+            if (!running) {
+                return;
+            }
+            client = new NetworkClient(host, port, null);
+            if (!client.connect()) {
+                failedConnections.incrementAndGet();
+                return;
+            }
+            activeSessions.incrementAndGet();
+
+            String username = prefix + (index % accounts);
+            request("LOGIN", () -> client.loginAsync(username, password))
+                    .thenCompose(user -> pause())
+                    .thenCompose(v -> request("GET_SPORTS", client::getSportsAsync))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            close();
+                        } else {
+                            sports = result;
+                            pause().thenRun(this::iterate);
+                        }
+                    });
+        }
+
+        /**
+         * Un parcours de réservation, relancé jusqu'à la fin du test
+         */
+        void iterate() {
+            if (!running || !client.isConnected()) {
+                close();
+                return;
+            }
+
+            Reservation reservation = new Reservation();
+            request("GET_VILLES", client::getVillesAsync)
+                    .thenCompose(villes -> pause().thenCompose(v ->
+                            request("GET_CENTRES", () -> client.getCentresAsync(pick(villes).getId()))))
+                    .thenCompose(centres -> pause().thenCompose(v -> {
+                        Centre centre = pick(centres);
+                        return request("GET_TERRAINS",
+                                () -> client.getTerrainsAsync(pick(sports).getId(), centre.getId()));
+                    }))
+                    .thenCompose(terrains -> pause().thenCompose(v -> {
+                        Terrain terrain = pick(terrains);
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        LocalTime debut = LocalTime.of(FIRST_HOUR + random.nextInt(LAST_HOUR - FIRST_HOUR), 0);
+                        reservation.setTerrainId(terrain.getId());
+                        reservation.setDateReservation(LocalDate.now().plusDays(1 + random.nextInt(days)));
+                        reservation.setHeureDebut(debut);
+                        reservation.setHeureFin(debut.plusHours(1));
+                        reservation.setPrixTotal(terrain.getPrixHeure());
+                        return request("CHECK_DISPONIBILITE", () -> client.checkDisponibiliteAsync(
+                                terrain.getId(), reservation.getDateReservation(), debut, reservation.getHeureFin()));
+                    }))
+                    .thenCompose(libre -> {
+                        if (!libre) {
+                            stats("CHECK_DISPONIBILITE").conflicts.incrementAndGet();
+                            return CompletableFuture.completedFuture(false);
+                        }
+                        return pause().thenCompose(v -> request("RESERVER",
+                                () -> client.createReservationAsync(reservation)));
+                    })
+                    .whenComplete((booked, error) -> {
+                        if (error != null) {
+                            abortedFlows.incrementAndGet();
+                        } else {
+                            completedFlows.incrementAndGet();
+                            if (booked) {
+                                bookings.incrementAndGet();
+                            }
+                        }
+                        pause().thenRun(this::iterate);
+                    });
+        }
+
+        void close() {
+            if (client != null) {
+                client.disconnect();
+                activeSessions.decrementAndGet();
+                client = null;
+            }
+        }
+    }
+
+    /**
+     * Envoie une requête et enregistre sa latence ; pour RESERVER, un refus
+     * "non disponible" est un conflit et non une erreur
+     */
+    private <T> CompletableFuture<T> request(String command, Supplier<CompletableFuture<T>> sender) {
+        CommandStats commandStats = stats(command);
+        long start = System.nanoTime();
+        return sender.get().whenComplete((result, error) -> {
+            commandStats.record(System.nanoTime() - start);
+            if (error == null) {
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            String message = cause.getMessage();
+            if ("RESERVER".equals(command) && message != null && message.contains("non disponible")) {
+                commandStats.conflicts.incrementAndGet();
+            } else {
+                commandStats.errors.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Pause avant la requête suivante, exponentielle de moyenne thinkMs
+     */
+    private CompletableFuture<Void> pause() {
+        if (thinkMs <= 0) {
+            return CompletableFuture.runAsync(() -> {}, executor);
+        }
+        long delay = (long) (-thinkMs * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+        return CompletableFuture.runAsync(() -> {},
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor));
+    }
+
+    /**
+     * Choix biaisé : hotRatio des tirages parmi les hotCount premiers éléments
+     */
+    private <T> T pick(List<T> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalStateException("Catalogue vide");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bound = random.nextDouble() < hotRatio ? Math.min(hotCount, items.size()) : items.size();
+        return items.get(random.nextInt(bound));
+    }
+
+    private CommandStats stats(String command) {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            if (COMMANDS[i].equals(command)) {
+                return stats[i];
+            }
+        }
+        throw new IllegalArgumentException(command);
+    }
+
+    private long totalRequests() {
+        long total = 0;
+        for (CommandStats commandStats : stats) {
+            total += commandStats.histogram.count();
+        }
+        return total;
+    }
+
+    private long totalErrors() {
+        long total = 0;
+        for (CommandStats commandStats : stats) {
+            total += commandStats.errors.get();
+        }
+        return total;
+    }
+
+    private long totalConflicts() {
+        long total = 0;
+        for (CommandStats commandStats : stats) {
+            total += commandStats.conflicts.get();
+        }
+        return total;
+    }
+
+    private void printReport(long elapsedMs) {
+        double seconds = elapsedMs / 1000.0;
+        System.out.println();
+        System.out.println("=== Charge : " + sessions + " sessions, " + String.format(Locale.ROOT, "%.0f", seconds)
+                + " s, " + failedConnections.get() + " connexions refusées ===");
+        System.out.printf(Locale.ROOT, "Débit : %.1f req/s, %.1f parcours/s, %.1f réservations/s (%d parcours interrompus)%n",
+                totalRequests() / seconds, completedFlows.get() / seconds, bookings.get() / seconds,
+                abortedFlows.get());
+        System.out.printf("%-22s %10s %9s %9s %9s %9s %9s %9s%n",
+                "commande", "requêtes", "erreurs", "conflits", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        for (int i = 0; i < COMMANDS.length; i++) {
+            CommandStats commandStats = stats[i];
+            long count = commandStats.histogram.count();
+            if (count == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-22s %10d %8.2f%% %8.2f%% %9.1f %9.1f %9.1f %9.1f%n",
+                    COMMANDS[i], count,
+                    commandStats.errors.get() * 100.0 / count, commandStats.conflicts.get() * 100.0 / count,
+                    commandStats.histogram.percentile(0.50) / 1000.0,
+                    commandStats.histogram.percentile(0.99) / 1000.0,
+                    commandStats.histogram.percentile(0.999) / 1000.0,
+                    commandStats.histogram.max() / 1000.0);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void log(String message) {
+        System.out.println("[LoadGenerator] " + message);
+    }
+
+    /**
+     * Compteurs d'une commande
+     */
+    private static final class CommandStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+
+        void record(long elapsedNanos) {
+            histogram.record(elapsedNanos / 1000);
+        }
+    }
+}
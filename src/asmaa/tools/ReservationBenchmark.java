@@ -0,0 +1,373 @@
+package asmaa.tools;
+
+import asmaa.model.Reservation;
+import asmaa.model.Terrain;
+import asmaa.server.ReservationManager;
+import asmaa.utils.BinaryCodec;
+import asmaa.utils.PasswordUtil;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesures du chemin de réservation, sans base de données
+ *
+ * ReservationManager tourne sur un InMemoryReservationStore ; chaque scénario
+ * est chauffé puis mesuré pendant une durée fixe sur N threads, et le débit
+ * (opérations par seconde) retenu est la médiane des itérations de mesure.
+ * Les résultats peuvent être enregistrés puis comparés à une référence :
+ * les écarts n'ont de sens que sur la même machine et la même JVM.
+ *
+ * Usage : java asmaa.tools.ReservationBenchmark [options] [filtre]
+ *   --threads N     threads des scénarios concurrents (8)
+ *   --warmup N      itérations de chauffe (3)
+ *   --iterations N  itérations de mesure (5)
+ *   --time MS       durée d'une itération (1000)
+ *   --rtt US        aller-retour simulé vers la base, en µs (0)
+ *   --commit US     durée simulée d'un commit, en µs (0)
+ *   --save FICHIER  enregistre les résultats
+ *   --compare FICHIER  compare à une référence (benchmarks/baseline.properties)
+ * Le filtre ne garde que les scénarios dont le nom le contient.
+ */
+public class ReservationBenchmark {
+
+    private static final LocalDate BASE_DATE = LocalDate.of(2030, 1, 1);
+    private static final int FIRST_HOUR = 7;
+    private static final int HOURS_PER_DAY = 16;
+    private static final int TERRAINS = 8;
+    private static final int READ_DAYS = 30;
+
+    private int threads = 8;
+    private int warmup = 3;
+    private int iterations = 5;
+    private long iterationMs = 1000;
+    private long rttMicros;
+    private long commitMicros;
+    private String filter = "";
+
+    private final Map<String, Result> results = new LinkedHashMap<>();
+
+    // Empêche la JVM d'éliminer les résultats non utilisés
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        ReservationBenchmark benchmark = new ReservationBenchmark();
+        String save = null;
+        String compare = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": benchmark.threads = Integer.parseInt(args[++i]); break;
+                case "--warmup": benchmark.warmup = Integer.parseInt(args[++i]); break;
+                case "--iterations": benchmark.iterations = Integer.parseInt(args[++i]); break;
+                case "--time": benchmark.iterationMs = Long.parseLong(args[++i]); break;
+                case "--rtt": benchmark.rttMicros = Long.parseLong(args[++i]); break;
+                case "--commit": benchmark.commitMicros = Long.parseLong(args[++i]); break;
+                case "--save": save = args[++i]; break;
+                case "--compare": compare = args[++i]; break;
+                default: benchmark.filter = args[i];
+            }
+        }
+
+        benchmark.runAll();
+        benchmark.print(compare != null ? load(Paths.get(compare)) : null);
+        if (save != null) {
+            benchmark.save(Paths.get(save));
+        }
+    }
+
+    private void runAll() throws Exception {
+        // Réservations : toutes sur un même terrain, ou un terrain par thread
+        runManager("reserver.memeTerrain", threads, (manager, thread, n) ->
+                manager.createReservation(reservation(1, n)), false);
+        runManager("reserver.terrainsDifferents", threads, (manager, thread, n) ->
+                manager.createReservation(reservation(1 + thread, n)), false);
+
+        // Lectures et écritures mêlées sur quelques terrains déjà chargés
+        runManager("mixte.90lectures", threads, mixed(90), true);
+        runManager("mixte.50lectures", threads, mixed(50), true);
+        runManager("disponibilite.lecture", threads, mixed(100), true);
+
+        run("motDePasse.hash", 1, (thread, n) ->
+                sink = PasswordUtil.hashPassword("motdepasse" + n, "utilisateur" + n + "@asmaa.ma"));
+
+        List<Reservation> reservations = sampleReservations(200);
+        List<Terrain> terrains = sampleTerrains(50);
+        run("serialisation.reservations.java", 1, (thread, n) -> sink = javaSerialize(reservations));
+        run("serialisation.reservations.binaire", 1, (thread, n) -> sink = binarySerialize(reservations));
+        run("serialisation.terrains.java", 1, (thread, n) -> sink = javaSerialize(terrains));
+        run("serialisation.terrains.binaire", 1, (thread, n) -> sink = binarySerialize(terrains));
+    }
+
+    /**
+     * Opération mêlant lectures (checkDisponibilite) et réservations, au hasard
+     * sur TERRAINS terrains et READ_DAYS jours ; une réservation sur une heure
+     * déjà prise échoue, comme chez un vrai client. Une réservation acceptée est
+     * aussitôt annulée : sans cela les créneaux seraient tous pris dès la
+     * chauffe et la mesure ne verrait plus que des refus.
+     */
+    private static ManagerOperation mixed(int readPercent) {
+        return (manager, thread, n) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int terrainId = 1 + random.nextInt(TERRAINS);
+            LocalDate date = BASE_DATE.plusDays(random.nextInt(READ_DAYS));
+            LocalTime debut = LocalTime.of(FIRST_HOUR + random.nextInt(HOURS_PER_DAY), 0);
+
+            if (random.nextInt(100) < readPercent) {
+                return manager.checkDisponibilite(terrainId, date, debut, debut.plusHours(1));
+            }
+            Reservation reservation = reservation(terrainId, date, debut);
+            if (manager.createReservation(reservation) != ReservationManager.Creation.CONFIRMEE) {
+                return false;
+            }
+            return manager.annulerReservation(reservation.getId());
+        };
+    }
+
+    /**
+     * Scénario sur un ReservationManager neuf (journées déjà chargées si preload)
+     */
+    private void runManager(String name, int threadCount, ManagerOperation operation, boolean preload)
+            throws Exception {
+        if (!selected(name)) {
+            return;
+        }
+        ReservationManager manager = new ReservationManager(new InMemoryReservationStore(rttMicros, commitMicros));
+        try {
+            if (preload) {
+                for (int terrainId = 1; terrainId <= TERRAINS; terrainId++) {
+                    for (int day = 0; day < READ_DAYS; day++) {
+                        manager.checkDisponibilite(terrainId, BASE_DATE.plusDays(day),
+                                LocalTime.of(FIRST_HOUR, 0), LocalTime.of(FIRST_HOUR + 1, 0));
+                    }
+                }
+            }
+            run(name, threadCount, (thread, n) -> sink = operation.run(manager, thread, n));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private void run(String name, int threadCount, Operation operation) throws Exception {
+        if (!selected(name)) {
+            return;
+        }
+        log(name + " (" + threadCount + " thread" + (threadCount > 1 ? "s" : "") + ")");
+
+        // Compteur d'opérations partagé : chaque appel reçoit un numéro unique
+        AtomicLong sequence = new AtomicLong();
+        for (int i = 0; i < warmup; i++) {
+            iteration(threadCount, operation, sequence);
+        }
+        double[] measures = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            measures[i] = iteration(threadCount, operation, sequence);
+        }
+        results.put(name, new Result(threadCount, measures));
+    }
+
+    /**
+     * Une itération : les threads démarrent ensemble et s'arrêtent à l'échéance
+     * @return opérations par seconde
+     */
+    private double iteration(int threadCount, Operation operation, AtomicLong sequence) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong done = new AtomicLong();
+        List<Thread> workers = new ArrayList<>(threadCount);
+        List<Throwable> errors = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                long count = 0;
+                try {
+                    start.await();
+                    long deadline = System.nanoTime() + iterationMs * 1_000_000;
+                    while (System.nanoTime() < deadline) {
+                        operation.run(thread, sequence.getAndIncrement());
+                        count++;
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+                done.addAndGet(count);
+            }, "bench-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Scénario interrompu", errors.get(0));
+        }
+        return done.get() * 1e9 / elapsed;
+    }
+
+    private boolean selected(String name) {
+        return name.contains(filter);
+    }
+
+    private void print(Properties baseline) {
+        System.out.println();
+        System.out.println("=== Débits (médiane de " + iterations + " x " + iterationMs + " ms, "
+                + Runtime.getRuntime().availableProcessors() + " cœurs, Java "
+                + System.getProperty("java.version") + ") ===");
+        System.out.printf("%-38s %8s %14s %10s %10s%n", "scénario", "threads", "ops/s", "écart", "référence");
+
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            String reference = baseline != null ? baseline.getProperty(entry.getKey()) : null;
+            String delta = "";
+            if (reference != null) {
+                double before = Double.parseDouble(reference);
+                delta = String.format("%+.1f%%", (result.median() - before) * 100 / before);
+            }
+            System.out.printf("%-38s %8d %14.0f %10s %10s%n", entry.getKey(), result.threads,
+                    result.median(), delta, reference == null ? "" : reference);
+        }
+    }
+
+    /**
+     * Enregistre les débits au format properties, clés triées pour faciliter les diffs
+     */
+    private void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.println("# ReservationBenchmark : ops/s (médiane), " + threads + " threads, "
+                    + Runtime.getRuntime().availableProcessors() + " cœurs, Java "
+                    + System.getProperty("java.version"));
+            for (String name : new TreeSet<>(results.keySet())) {
+                writer.printf(Locale.ROOT, "%s=%.0f%n", name, results.get(name).median());
+            }
+        }
+        log("Résultats enregistrés dans " + file);
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    /**
+     * Réservation d'une heure, unique pour chaque numéro d'opération
+     */
+    private static Reservation reservation(int terrainId, long n) {
+        return reservation(terrainId, BASE_DATE.plusDays(n / HOURS_PER_DAY),
+                LocalTime.of(FIRST_HOUR + (int) (n % HOURS_PER_DAY), 0));
+    }
+
+    private static Reservation reservation(int terrainId, LocalDate date, LocalTime debut) {
+        Reservation reservation = new Reservation();
+        reservation.setUserId(1);
+        reservation.setTerrainId(terrainId);
+        reservation.setDateReservation(date);
+        reservation.setHeureDebut(debut);
+        reservation.setHeureFin(debut.plusHours(1));
+        reservation.setPrixTotal(150);
+        return reservation;
+    }
+
+    private static List<Reservation> sampleReservations(int count) {
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Reservation reservation = reservation(1 + i % TERRAINS, i);
+            reservation.setId(i + 1);
+            reservation.setTerrainNom("Terrain " + (1 + i % TERRAINS));
+            reservation.setSportNom("Football");
+            reservation.setCentreNom("Centre Maarif");
+            reservations.add(reservation);
+        }
+        return reservations;
+    }
+
+    private static List<Terrain> sampleTerrains(int count) {
+        List<Terrain> terrains = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Terrain terrain = new Terrain();
+            terrain.setId(i + 1);
+            terrain.setNom("Terrain " + (i + 1));
+            terrain.setCentreId(1 + i / 5);
+            terrain.setSportId(1 + i % 4);
+            terrain.setTypeSurface("Gazon synthétique");
+            terrain.setCapacite(10);
+            terrain.setPrixHeure(150);
+            terrain.setActif(true);
+            terrain.setSportNom("Football");
+            terrain.setCentreNom("Centre " + (1 + i / 5));
+            terrains.add(terrain);
+        }
+        return terrains;
+    }
+
+    private static byte[] javaSerialize(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(value);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] binarySerialize(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (BinaryCodec.Encoder out = new BinaryCodec.Encoder(buffer)) {
+            out.writeObject(value);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void log(String message) {
+        System.out.println("[ReservationBenchmark] " + message);
+    }
+
+    private interface Operation {
+        void run(int thread, long n) throws Exception;
+    }
+
+    private interface ManagerOperation {
+        Object run(ReservationManager manager, int thread, long n) throws Exception;
+    }
+
+    private static final class Result {
+        private final int threads;
+        private final double[] measures;
+
+        Result(int threads, double[] measures) {
+            this.threads = threads;
+            this.measures = measures.clone();
+            Arrays.sort(this.measures);
+        }
+
+        double median() {
+            return measures[measures.length / 2];
+        }
+    }
+}
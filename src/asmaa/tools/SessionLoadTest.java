@@ -0,0 +1,118 @@
+package asmaa.tools;
+
+import asmaa.server.ServerMain;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test de charge des sessions : ouvre N sessions inactives (ancien protocole)
+ * contre un ServerMain local, d'abord en mode "threads" puis en mode "virtual",
+ * et compte celles réellement prises en charge par un ClientHandler.
+ *
+ * Une session est prise en charge quand le serveur a envoyé l'en-tête de son
+ * ObjectOutputStream, c'est-à-dire quand ClientHandler.run() a démarré.
+ * Aucune commande n'est envoyée : la base de données n'est pas nécessaire.
+ *
+ * Usage : java asmaa.tools.SessionLoadTest [sessions] [attente-ms]
+ */
+public class SessionLoadTest {
+
+    private static final int BASE_PORT = 5100;
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long waitMs = args.length > 1 ? Long.parseLong(args[1]) : 5000;
+
+        Result threads = run("threads", BASE_PORT, sessions, waitMs);
+        Result virtual = run("virtual", BASE_PORT + 1, sessions, waitMs);
+
+        System.out.println();
+        System.out.println("=== Sessions simultanées (" + sessions + " ouvertes, attente " + waitMs + " ms) ===");
+        System.out.printf("%-10s %12s %16s %14s%n", "mode", "servies", "threads JVM", "tas (Mo)");
+        threads.print();
+        virtual.print();
+    }
+
+    /**
+     * Démarre un serveur dans le mode donné et y ouvre les sessions
+     */
+    private static Result run(String mode, int port, int sessions, long waitMs) throws Exception {
+        ServerMain server = new ServerMain(port, mode);
+        Thread serverThread = new Thread(server::start, "server-" + mode);
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        while (!server.isRunning()) {
+            Thread.sleep(10);
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeap();
+
+        List<Socket> sockets = new ArrayList<>(sessions);
+        try {
+            for (int i = 0; i < sessions; i++) {
+                Socket socket = new Socket("localhost", port);
+                ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+                out.flush();
+                sockets.add(socket);
+            }
+
+            int served = 0;
+            long deadline = System.currentTimeMillis() + waitMs;
+            for (Socket socket : sockets) {
+                long remaining = Math.max(1, deadline - System.currentTimeMillis());
+                socket.setSoTimeout((int) remaining);
+                try {
+                    new DataInputStream(socket.getInputStream()).readFully(new byte[4]);
+                    served++;
+                } catch (SocketTimeoutException e) {
+                    // Session ouverte mais jamais prise en charge
+                }
+            }
+
+            return new Result(mode, served, threadBean.getThreadCount(),
+                    (usedHeap() - heapBefore) / (1024 * 1024));
+
+        } finally {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ignorer
+                }
+            }
+            server.shutdown();
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class Result {
+        private final String mode;
+        private final int served;
+        private final int jvmThreads;
+        private final long heapMb;
+
+        Result(String mode, int served, int jvmThreads, long heapMb) {
+            this.mode = mode;
+            this.served = served;
+            this.jvmThreads = jvmThreads;
+            this.heapMb = heapMb;
+        }
+
+        void print() {
+            System.out.printf("%-10s %12d %16d %14d%n", mode, served, jvmThreads, heapMb);
+        }
+    }
+}
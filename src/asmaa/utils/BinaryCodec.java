@@ -0,0 +1,626 @@
+package asmaa.utils;
+
+import asmaa.model.*;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Codecs écrits à la main du protocole binaire
+ *
+ * Trame requête  : [opcode:1][requestId:4][arguments]
+ * Trame réponse  : [opcode:1][requestId:4][statut][données]
+ * Trame poussée  : [opcode:1][0:4][données] (abonnements, sans requête)
+ *
+ * Les valeurs passées à writeObject() sont préfixées d'un octet de type ;
+ * les entiers des modèles sont des varints, les dates des jours epoch, les
+ * heures des secondes de la journée et les montants des centimes.
+ * Les chaînes répétées dans une même trame (noms de centre, de sport...)
+ * ne sont écrites qu'une fois puis référencées par leur index.
+ */
+public class BinaryCodec {
+
+    /** Version du protocole binaire parlée par ce code */
+    public static final int PROTOCOL_VERSION = 1;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_BOOLEAN = 2;
+    private static final byte T_INTEGER = 3;
+    private static final byte T_DOUBLE = 4;
+    private static final byte T_LONG = 5;
+    private static final byte T_DATE = 6;
+    private static final byte T_TIME = 7;
+    private static final byte T_USER = 10;
+    private static final byte T_SPORT = 11;
+    private static final byte T_VILLE = 12;
+    private static final byte T_CENTRE = 13;
+    private static final byte T_TERRAIN = 14;
+    private static final byte T_RESERVATION = 15;
+    private static final byte T_ABONNEMENT = 16;
+    private static final byte T_GRID = 17;
+    private static final byte T_RESERVATION_FILTER = 18;
+    private static final byte T_DISPONIBILITE_DELTA = 19;
+    private static final byte T_CATALOGUE_ENTRY = 20;
+    private static final byte T_LIST = 30;
+    private static final byte T_MAP = 31;
+
+    private static final byte S_NULL = 0;
+    private static final byte S_NEW = 1;
+    private static final byte S_REF = 2;
+
+    /**
+     * Lecture d'une valeur composée (voir Decoder.readNested)
+     */
+    @FunctionalInterface
+    private interface NestedReader {
+        Object read() throws IOException;
+    }
+
+    /**
+     * Écriture d'une trame binaire
+     */
+    public static class Encoder extends DataOutputStream implements ObjectOutput {
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        public Encoder(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeObject(Object value) throws IOException {
+            byte type = typeOf(value);
+            writeByte(type);
+            writeValue(type, value);
+        }
+
+        private byte typeOf(Object value) throws IOException {
+            if (value == null) return T_NULL;
+            if (value instanceof String) return T_STRING;
+            if (value instanceof Boolean) return T_BOOLEAN;
+            if (value instanceof Integer) return T_INTEGER;
+            if (value instanceof Double) return T_DOUBLE;
+            if (value instanceof Long) return T_LONG;
+            if (value instanceof LocalDate) return T_DATE;
+            if (value instanceof LocalTime) return T_TIME;
+            if (value instanceof User) return T_USER;
+            if (value instanceof Sport) return T_SPORT;
+            if (value instanceof Ville) return T_VILLE;
+            if (value instanceof Centre) return T_CENTRE;
+            if (value instanceof Terrain) return T_TERRAIN;
+            if (value instanceof Reservation) return T_RESERVATION;
+            if (value instanceof Abonnement) return T_ABONNEMENT;
+            if (value instanceof DisponibiliteGrid) return T_GRID;
+            if (value instanceof ReservationFilter) return T_RESERVATION_FILTER;
+            if (value instanceof DisponibiliteDelta) return T_DISPONIBILITE_DELTA;
+            if (value instanceof CatalogueEntry) return T_CATALOGUE_ENTRY;
+            if (value instanceof List) return T_LIST;
+            if (value instanceof Map) return T_MAP;
+            throw new NotSerializableException("Type non supporté par le protocole binaire: "
+                    + value.getClass().getName());
+        }
+
+        private void writeValue(byte type, Object value) throws IOException {
+            switch (type) {
+                case T_NULL: break;
+                case T_STRING: writeString((String) value); break;
+                case T_BOOLEAN: writeBoolean((Boolean) value); break;
+                case T_INTEGER: writeInt((Integer) value); break;
+                case T_DOUBLE: writeDouble((Double) value); break;
+                case T_LONG: writeLong((Long) value); break;
+                case T_DATE: writeDate((LocalDate) value); break;
+                case T_TIME: writeTime((LocalTime) value); break;
+                case T_USER: writeUser((User) value); break;
+                case T_SPORT: writeSport((Sport) value); break;
+                case T_VILLE: writeVille((Ville) value); break;
+                case T_CENTRE: writeCentre((Centre) value); break;
+                case T_TERRAIN: writeTerrain((Terrain) value); break;
+                case T_RESERVATION: writeReservation((Reservation) value); break;
+                case T_ABONNEMENT: writeAbonnement((Abonnement) value); break;
+                case T_GRID: writeGrid((DisponibiliteGrid) value); break;
+                case T_RESERVATION_FILTER: writeReservationFilter((ReservationFilter) value); break;
+                case T_DISPONIBILITE_DELTA: writeDelta((DisponibiliteDelta) value); break;
+                case T_CATALOGUE_ENTRY: writeCatalogueEntry((CatalogueEntry) value); break;
+                case T_LIST: writeList((List<?>) value); break;
+                case T_MAP: writeMap((Map<?, ?>) value); break;
+                default: throw new IOException("Type inconnu: " + type);
+            }
+        }
+
+        /**
+         * Liste homogène : le type des éléments n'est écrit qu'une fois
+         */
+        private void writeList(List<?> list) throws IOException {
+            writeVarInt(list.size());
+            if (list.isEmpty()) {
+                return;
+            }
+            byte elementType = typeOf(list.get(0));
+            writeByte(elementType);
+            for (Object element : list) {
+                writeValue(elementType, element);
+            }
+        }
+
+        private void writeMap(Map<?, ?> map) throws IOException {
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()));
+                writeObject(entry.getValue());
+            }
+        }
+
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                writeByte(S_NULL);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeByte(S_REF);
+                writeVarInt(index);
+                return;
+            }
+            writeByte(S_NEW);
+            writeUTF(value);
+            strings.put(value, strings.size());
+        }
+
+        /**
+         * Entier signé en varint zigzag : 1 octet jusqu'à 63, 2 octets jusqu'à 8191...
+         */
+        public void writeVarInt(int value) throws IOException {
+            int zigzag = (value << 1) ^ (value >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                writeByte((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            writeByte(zigzag);
+        }
+
+        /**
+         * Montant en centimes (les prix sont des DECIMAL(10,2) en base)
+         */
+        private void writeMoney(double amount) throws IOException {
+            long cents = Math.round(amount * 100);
+            long zigzag = (cents << 1) ^ (cents >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) (zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        private void writeDate(LocalDate date) throws IOException {
+            writeVarInt(date == null ? Integer.MIN_VALUE : (int) date.toEpochDay());
+        }
+
+        private void writeTime(LocalTime time) throws IOException {
+            writeVarInt(time == null ? -1 : time.toSecondOfDay());
+        }
+
+        private void writeUser(User user) throws IOException {
+            writeVarInt(user.getId());
+            writeString(user.getUsername());
+            writeString(user.getEmail());
+            writeString(user.getPassword());
+            writeString(user.getNom());
+            writeString(user.getPrenom());
+            writeString(user.getTelephone());
+            writeByte(user.getRole() == null ? -1 : user.getRole().ordinal());
+            writeBoolean(user.isActif());
+            writeLong(user.getDateCreation() == null ? Long.MIN_VALUE
+                    : user.getDateCreation().toEpochSecond(ZoneOffset.UTC));
+        }
+
+        private void writeSport(Sport sport) throws IOException {
+            writeVarInt(sport.getId());
+            writeString(sport.getNom());
+            writeString(sport.getDescription());
+            writeString(sport.getImageUrl());
+        }
+
+        private void writeVille(Ville ville) throws IOException {
+            writeVarInt(ville.getId());
+            writeString(ville.getNom());
+            writeString(ville.getAdresse());
+            writeString(ville.getTelephone());
+            writeString(ville.getEmail());
+        }
+
+        private void writeCentre(Centre centre) throws IOException {
+            writeVarInt(centre.getId());
+            writeString(centre.getNom());
+            writeVarInt(centre.getVilleId());
+            writeString(centre.getAdresse());
+            writeString(centre.getTelephone());
+            writeTime(centre.getHoraireOuverture());
+            writeTime(centre.getHoraireFermeture());
+            writeBoolean(centre.isActif());
+        }
+
+        private void writeTerrain(Terrain terrain) throws IOException {
+            writeVarInt(terrain.getId());
+            writeString(terrain.getNom());
+            writeVarInt(terrain.getCentreId());
+            writeVarInt(terrain.getSportId());
+            writeString(terrain.getTypeSurface());
+            writeVarInt(terrain.getCapacite());
+            writeMoney(terrain.getPrixHeure());
+            writeBoolean(terrain.isActif());
+            writeString(terrain.getSportNom());
+            writeString(terrain.getCentreNom());
+        }
+
+        private void writeReservation(Reservation reservation) throws IOException {
+            writeVarInt(reservation.getId());
+            writeVarInt(reservation.getUserId());
+            writeVarInt(reservation.getTerrainId());
+            writeDate(reservation.getDateReservation());
+            writeTime(reservation.getHeureDebut());
+            writeTime(reservation.getHeureFin());
+            writeMoney(reservation.getPrixTotal());
+            writeMoney(reservation.getRemiseAppliquee());
+            writeByte(reservation.getStatut() == null ? -1 : reservation.getStatut().ordinal());
+            writeString(reservation.getTerrainNom());
+            writeString(reservation.getSportNom());
+            writeString(reservation.getCentreNom());
+        }
+
+        private void writeAbonnement(Abonnement abonnement) throws IOException {
+            writeVarInt(abonnement.getId());
+            writeString(abonnement.getNom());
+            writeString(abonnement.getDescription());
+            writeVarInt(abonnement.getDureeMois());
+            writeMoney(abonnement.getPrix());
+            writeMoney(abonnement.getRemisePourcentage());
+            writeVarInt(abonnement.getNombreReservations());
+            writeBoolean(abonnement.isActif());
+        }
+
+        /**
+         * Grille : un masque de 16 bits (un bit par créneau horaire) par terrain
+         */
+        private void writeGrid(DisponibiliteGrid grid) throws IOException {
+            writeDate(grid.getDate());
+            int[] terrainIds = grid.getTerrainIds();
+            int[] freeMasks = grid.getFreeMasks();
+            writeVarInt(terrainIds.length);
+            for (int i = 0; i < terrainIds.length; i++) {
+                writeVarInt(terrainIds[i]);
+                writeShort(freeMasks[i]);
+            }
+        }
+
+        private void writeDelta(DisponibiliteDelta delta) throws IOException {
+            writeVarInt(delta.getTerrainId());
+            writeDate(delta.getDate());
+            writeShort(delta.getFreeMask());
+        }
+
+        private void writeCatalogueEntry(CatalogueEntry entry) throws IOException {
+            writeLong(entry.getVersion());
+            writeObject(entry.getData());
+        }
+
+        private void writeReservationFilter(ReservationFilter filter) throws IOException {
+            writeDate(filter.getDateDebut());
+            writeDate(filter.getDateFin());
+            writeVarInt(filter.getCentreId());
+            writeVarInt(filter.getUserId());
+            writeByte(filter.getStatut() == null ? -1 : filter.getStatut().ordinal());
+            writeDate(filter.getApresDate());
+            writeTime(filter.getApresHeure());
+            writeVarInt(filter.getApresId());
+            writeVarInt(filter.getLimit());
+        }
+    }
+
+    /**
+     * Lecture d'une trame binaire
+     */
+    public static class Decoder extends DataInputStream implements ObjectInput {
+        /** Listes, tables et entrées imbriquées au plus sur cette profondeur */
+        private static final int MAX_DEPTH = 8;
+
+        private final List<String> strings = new ArrayList<>();
+        private int depth;
+
+        public Decoder(byte[] frame) {
+            super(new ByteArrayInputStream(frame));
+        }
+
+        /**
+         * Valeur suivante ; toute donnée incohérente (taille, index, date hors
+         * bornes...) lève StreamCorruptedException, jamais une exception non
+         * vérifiée ni une allocation démesurée
+         */
+        @Override
+        public Object readObject() throws IOException {
+            try {
+                return readValue(readByte());
+            } catch (RuntimeException e) {
+                throw new StreamCorruptedException("Valeur invalide: " + e.getMessage());
+            }
+        }
+
+        private Object readValue(byte type) throws IOException {
+            switch (type) {
+                case T_NULL: return null;
+                case T_STRING: return readString();
+                case T_BOOLEAN: return readBoolean();
+                case T_INTEGER: return readInt();
+                case T_DOUBLE: return readDouble();
+                case T_LONG: return readLong();
+                case T_DATE: return readDate();
+                case T_TIME: return readTime();
+                case T_USER: return readUser();
+                case T_SPORT: return readSport();
+                case T_VILLE: return readVille();
+                case T_CENTRE: return readCentre();
+                case T_TERRAIN: return readTerrain();
+                case T_RESERVATION: return readReservation();
+                case T_ABONNEMENT: return readAbonnement();
+                case T_GRID: return readGrid();
+                case T_RESERVATION_FILTER: return readReservationFilter();
+                case T_DISPONIBILITE_DELTA: return readDelta();
+                case T_CATALOGUE_ENTRY: return readNested(this::readCatalogueEntry);
+                case T_LIST: return readNested(this::readList);
+                case T_MAP: return readNested(this::readMap);
+                default: throw new StreamCorruptedException("Type inconnu: " + type);
+            }
+        }
+
+        /**
+         * Valeur contenant d'autres valeurs : la profondeur est bornée pour
+         * qu'une trame ne puisse pas épuiser la pile
+         */
+        private Object readNested(NestedReader reader) throws IOException {
+            if (++depth > MAX_DEPTH) {
+                throw new StreamCorruptedException("Imbrication trop profonde");
+            }
+            try {
+                return reader.read();
+            } finally {
+                depth--;
+            }
+        }
+
+        /**
+         * Nombre d'éléments annoncé, vérifié contre les octets restants de la
+         * trame (chaque élément en occupe au moins minBytes)
+         */
+        private int readSize(int minBytes) throws IOException {
+            int size = readVarInt();
+            if (size < 0 || (long) size * minBytes > available()) {
+                throw new StreamCorruptedException("Taille invalide: " + size);
+            }
+            return size;
+        }
+
+        private static <E> E ordinal(E[] values, byte index) throws IOException {
+            if (index < 0) {
+                return null;
+            }
+            if (index >= values.length) {
+                throw new StreamCorruptedException("Valeur d'énumération invalide: " + index);
+            }
+            return values[index];
+        }
+
+        private List<Object> readList() throws IOException {
+            // Au moins un octet par élément : une liste de null n'est pas acceptée
+            int size = readSize(1);
+            List<Object> list = new ArrayList<>(size);
+            if (size == 0) {
+                return list;
+            }
+            byte elementType = readByte();
+            for (int i = 0; i < size; i++) {
+                list.add(readValue(elementType));
+            }
+            return list;
+        }
+
+        private Map<String, Object> readMap() throws IOException {
+            int size = readSize(2);
+            Map<String, Object> map = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                map.put(readString(), readObject());
+            }
+            return map;
+        }
+
+        public String readString() throws IOException {
+            byte marker = readByte();
+            if (marker == S_NULL) {
+                return null;
+            }
+            if (marker == S_REF) {
+                int index = readVarInt();
+                if (index < 0 || index >= strings.size()) {
+                    throw new StreamCorruptedException("Référence de chaîne invalide: " + index);
+                }
+                return strings.get(index);
+            }
+            if (marker != S_NEW) {
+                throw new StreamCorruptedException("Marqueur de chaîne invalide: " + marker);
+            }
+            String value = readUTF();
+            strings.add(value);
+            return value;
+        }
+
+        public int readVarInt() throws IOException {
+            int zigzag = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readUnsignedByte();
+                zigzag |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new StreamCorruptedException("Varint trop long");
+        }
+
+        private double readMoney() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return ((zigzag >>> 1) ^ -(zigzag & 1)) / 100.0;
+                }
+            }
+            throw new StreamCorruptedException("Montant trop long");
+        }
+
+        private LocalDate readDate() throws IOException {
+            int epochDay = readVarInt();
+            return epochDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+        }
+
+        private LocalTime readTime() throws IOException {
+            int secondOfDay = readVarInt();
+            return secondOfDay < 0 ? null : LocalTime.ofSecondOfDay(secondOfDay);
+        }
+
+        private User readUser() throws IOException {
+            User user = new User();
+            user.setId(readVarInt());
+            user.setUsername(readString());
+            user.setEmail(readString());
+            user.setPassword(readString());
+            user.setNom(readString());
+            user.setPrenom(readString());
+            user.setTelephone(readString());
+            byte role = readByte();
+            user.setRole(ordinal(User.Role.values(), role));
+            user.setActif(readBoolean());
+            long dateCreation = readLong();
+            user.setDateCreation(dateCreation == Long.MIN_VALUE ? null
+                    : LocalDateTime.ofEpochSecond(dateCreation, 0, ZoneOffset.UTC));
+            return user;
+        }
+
+        private Sport readSport() throws IOException {
+            Sport sport = new Sport();
+            sport.setId(readVarInt());
+            sport.setNom(readString());
+            sport.setDescription(readString());
+            sport.setImageUrl(readString());
+            return sport;
+        }
+
+        private Ville readVille() throws IOException {
+            Ville ville = new Ville();
+            ville.setId(readVarInt());
+            ville.setNom(readString());
+            ville.setAdresse(readString());
+            ville.setTelephone(readString());
+            ville.setEmail(readString());
+            return ville;
+        }
+
+        private Centre readCentre() throws IOException {
+            Centre centre = new Centre();
+            centre.setId(readVarInt());
+            centre.setNom(readString());
+            centre.setVilleId(readVarInt());
+            centre.setAdresse(readString());
+            centre.setTelephone(readString());
+            centre.setHoraireOuverture(readTime());
+            centre.setHoraireFermeture(readTime());
+            centre.setActif(readBoolean());
+            return centre;
+        }
+
+        private Terrain readTerrain() throws IOException {
+            Terrain terrain = new Terrain();
+            terrain.setId(readVarInt());
+            terrain.setNom(readString());
+            terrain.setCentreId(readVarInt());
+            terrain.setSportId(readVarInt());
+            terrain.setTypeSurface(readString());
+            terrain.setCapacite(readVarInt());
+            terrain.setPrixHeure(readMoney());
+            terrain.setActif(readBoolean());
+            terrain.setSportNom(readString());
+            terrain.setCentreNom(readString());
+            return terrain;
+        }
+
+        private Reservation readReservation() throws IOException {
+            Reservation reservation = new Reservation();
+            reservation.setId(readVarInt());
+            reservation.setUserId(readVarInt());
+            reservation.setTerrainId(readVarInt());
+            reservation.setDateReservation(readDate());
+            reservation.setHeureDebut(readTime());
+            reservation.setHeureFin(readTime());
+            reservation.setPrixTotal(readMoney());
+            reservation.setRemiseAppliquee(readMoney());
+            byte statut = readByte();
+            reservation.setStatut(ordinal(Reservation.Statut.values(), statut));
+            reservation.setTerrainNom(readString());
+            reservation.setSportNom(readString());
+            reservation.setCentreNom(readString());
+            return reservation;
+        }
+
+        private Abonnement readAbonnement() throws IOException {
+            Abonnement abonnement = new Abonnement();
+            abonnement.setId(readVarInt());
+            abonnement.setNom(readString());
+            abonnement.setDescription(readString());
+            abonnement.setDureeMois(readVarInt());
+            abonnement.setPrix(readMoney());
+            abonnement.setRemisePourcentage(readMoney());
+            abonnement.setNombreReservations(readVarInt());
+            abonnement.setActif(readBoolean());
+            return abonnement;
+        }
+
+        private DisponibiliteGrid readGrid() throws IOException {
+            LocalDate date = readDate();
+            int size = readSize(3);  // varint + masque de 2 octets
+            int[] terrainIds = new int[size];
+            int[] freeMasks = new int[size];
+            for (int i = 0; i < size; i++) {
+                terrainIds[i] = readVarInt();
+                freeMasks[i] = readUnsignedShort();
+            }
+            return new DisponibiliteGrid(date, terrainIds, freeMasks);
+        }
+
+        private DisponibiliteDelta readDelta() throws IOException {
+            int terrainId = readVarInt();
+            LocalDate date = readDate();
+            return new DisponibiliteDelta(terrainId, date, readUnsignedShort());
+        }
+
+        private CatalogueEntry readCatalogueEntry() throws IOException {
+            long version = readLong();
+            return new CatalogueEntry(version, (List<?>) readObject());
+        }
+
+        private ReservationFilter readReservationFilter() throws IOException {
+            ReservationFilter filter = new ReservationFilter();
+            filter.setDateDebut(readDate());
+            filter.setDateFin(readDate());
+            filter.setCentreId(readVarInt());
+            filter.setUserId(readVarInt());
+            byte statut = readByte();
+            filter.setStatut(ordinal(Reservation.Statut.values(), statut));
+            filter.setApresDate(readDate());
+            filter.setApresHeure(readTime());
+            filter.setApresId(readVarInt());
+            filter.setLimit(readVarInt());
+            return filter;
+        }
+    }
+}
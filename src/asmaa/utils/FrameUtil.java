@@ -0,0 +1,59 @@
+package asmaa.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Utilitaire de découpage en trames du protocole client/serveur
+ * Format : [int longueur][longueur octets de charge utile]
+ *
+ * Un client "tramé" envoie MAGIC_FRAMED dès la connexion ; sans ce préfixe,
+ * le serveur retombe sur l'ancien protocole (flux ObjectOutputStream continu).
+ * MAGIC_BINARY est suivi de la version demandée (int) ; le serveur répond par
+ * la version retenue (int, 0 si aucune) avant le premier échange de trames.
+ */
+public class FrameUtil {
+
+    /** "ASMF" : annonce le protocole tramé (sérialisation Java par trame) */
+    public static final int MAGIC_FRAMED = 0x41534D46;
+
+    /** "ASMB" : annonce le protocole binaire à opcodes (BinaryCodec) */
+    public static final int MAGIC_BINARY = 0x41534D42;
+
+    /** En-tête d'un flux ObjectOutputStream (STREAM_MAGIC + STREAM_VERSION) */
+    public static final int MAGIC_LEGACY = 0xACED0005;
+
+    /** Taille maximale acceptée pour une trame (16 Mo) */
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Écrit une trame complète et vide le flux
+     */
+    public static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Lit une trame complète (bloquant)
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * Vérifie qu'une longueur de trame annoncée est acceptable
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Taille de trame invalide: " + length);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package asmaa.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+/**
+ * Réduction d'images avec ImageIO, partagée par ImageService (client) et
+ * AssetOptimizer (préparation des ressources)
+ *
+ * La source est lue sous-échantillonnée (au plus 2x la taille visée) puis
+ * réduite par interpolation bilinéaire : une photo n'est jamais décodée en
+ * pleine résolution pour produire une vignette.
+ */
+public class ImageScaler {
+
+    /** Qualité JPEG des variantes (sans perte visible sur des photos) */
+    public static final float JPEG_QUALITY = 0.85f;
+
+    /**
+     * Largeur et hauteur de l'image, lues dans l'en-tête sans décoder les pixels
+     */
+    public static int[] readSize(URL source) throws IOException {
+        try (InputStream in = source.openStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Image réduite d'un facteur scale (<= 1), avec ou sans canal alpha
+     */
+    public static BufferedImage readScaled(URL source, double scale, boolean alpha) throws IOException {
+        try (InputStream in = source.openStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                double factor = Math.min(1.0, scale);
+                int step = Math.max(1, (int) Math.floor(1 / (2 * factor)));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                return resize(decoded, Math.max(1, (int) Math.round(width * factor)),
+                        Math.max(1, (int) Math.round(height * factor)), alpha);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Facteur qui fait couvrir à l'image la zone demandée en gardant ses proportions
+     */
+    public static double coverScale(int width, int height, int targetWidth, int targetHeight) {
+        return Math.min(1.0, Math.max((double) targetWidth / width, (double) targetHeight / height));
+    }
+
+    /**
+     * Écrit l'image (PNG ou JPEG) dans un fichier temporaire puis la met en place
+     * atomiquement : un lecteur concurrent ne voit jamais de fichier partiel
+     */
+    public static void write(BufferedImage image, Path file, boolean png, boolean progressive)
+            throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "image", ".tmp");
+        try {
+            if (png) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                writeJpeg(image, temp, progressive);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeJpeg(BufferedImage image, Path file, boolean progressive) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            if (progressive) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Réduit une image déjà décodée, par moitiés successives puis une
+     * dernière interpolation bilinéaire (pas de pixels sautés)
+     */
+    public static BufferedImage resize(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, alpha);
+        }
+        return draw(current, width, height, alpha);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage resized = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    private static ImageReader readerFor(ImageInputStream input) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("Format non pris en charge");
+        }
+        return readers.next();
+    }
+}
@@ -0,0 +1,68 @@
+package asmaa.utils;
+
+/**
+ * Codes d'opération du protocole binaire (un octet par commande)
+ * Le nom de chaque constante est la commande texte de l'ancien protocole.
+ */
+public enum Opcode {
+    LOGIN(1),
+    REGISTER(2),
+    GET_SPORTS(3),
+    GET_TERRAINS(4),
+    GET_CENTRES(5),
+    GET_VILLES(6),
+    CHECK_DISPONIBILITE(7),
+    RESERVER(8),
+    GET_MES_RESERVATIONS(9),
+    GET_ABONNEMENTS(10),
+    SOUSCRIRE_ABONNEMENT(11),
+    ANNULER_RESERVATION(12),
+    GET_STATISTIQUES(13),
+    ADMIN_STATS(14),
+    ADMIN_GET_CENTRES(15),
+    ADMIN_GET_TERRAINS(16),
+    ADMIN_GET_RESERVATIONS(17),
+    ADMIN_DELETE_CENTRE(18),
+    ADMIN_BLOQUER_TERRAIN(19),
+    DISCONNECT(20),
+    GET_DISPONIBILITES_GRID(21),
+    ADMIN_GET_RESERVATIONS_PAGE(22),
+    SUBSCRIBE_DISPONIBILITES(23),
+    UNSUBSCRIBE_DISPONIBILITES(24),
+    /** Poussé par le serveur (requestId 0) : [opcode][0][DisponibiliteDelta] */
+    DISPONIBILITE_UPDATE(25),
+    /** Liste du catalogue si sa version a changé : [clé][version connue] -> CatalogueEntry */
+    GET_CATALOGUE(26);
+
+    private static final Opcode[] BY_CODE = new Opcode[128];
+
+    static {
+        for (Opcode opcode : values()) {
+            BY_CODE[opcode.code] = opcode;
+        }
+    }
+
+    private final byte code;
+
+    Opcode(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Retrouve l'opcode d'un octet reçu (null si inconnu)
+     */
+    public static Opcode fromCode(byte code) {
+        return code >= 0 ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Retrouve l'opcode d'une commande texte
+     */
+    public static Opcode fromCommand(String command) {
+        return valueOf(command);
+    }
+}